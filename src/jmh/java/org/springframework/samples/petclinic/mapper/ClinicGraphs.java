@@ -0,0 +1,129 @@
+package org.springframework.samples.petclinic.mapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+
+/**
+ * Builds entity graphs of the shapes the REST endpoints map and serialize: owners with their pets and pets with their
+ * visits, and vets with their specialties. The graphs are deterministic (seeded) so that the results are comparable
+ * across runs.
+ *
+ * @author Vladimir Plizga
+ */
+public final class ClinicGraphs {
+
+    private static final List<String> FIRST_NAMES = List.of("George", "Betty", "Eduardo", "Harold", "Peter", "Jean",
+        "Jeff", "Maria", "David", "Carlos", "Helen", "Linda", "Rafael", "Henry", "Sharon");
+    private static final List<String> LAST_NAMES = List.of("Franklin", "Davis", "Rodriquez", "McTavish", "Coleman",
+        "Black", "Escobito", "Schroeder", "Estaban", "Carter", "Leary", "Douglas", "Ortega", "Stevens", "Jenkins");
+    private static final List<String> CITIES = List.of("Madison", "Sun Prairie", "McFarland", "Windsor", "Monona",
+        "Waunakee");
+    private static final List<String> PET_NAMES = List.of("Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha",
+        "Max", "Lucky", "Mulligan", "Freddy", "Sly");
+    private static final List<String> VISIT_DESCRIPTIONS = List.of("rabies shot", "neutered", "spayed",
+        "annual checkup", "dental cleaning", "vaccination against distemper and parvovirus");
+    private static final List<String> SPECIALTIES = List.of("radiology", "surgery", "dentistry", "cardiology",
+        "dermatology");
+    private static final LocalDate FIRST_DATE = LocalDate.of(2010, 1, 1);
+
+    private ClinicGraphs() {
+    }
+
+    /**
+     * @return {@code ownersCount} owners having {@code petsPerOwner} pets each, every pet having {@code visitsPerPet}
+     * visits
+     */
+    public static List<Owner> owners(int ownersCount, int petsPerOwner, int visitsPerPet) {
+        Random random = new Random(42);
+        List<PetType> types = new ArrayList<>();
+        for (String typeName : List.of("cat", "dog", "lizard", "snake", "bird", "hamster")) {
+            PetType type = new PetType();
+            type.setId(types.size() + 1);
+            type.setName(typeName);
+            types.add(type);
+        }
+
+        List<Owner> owners = new ArrayList<>(ownersCount);
+        int petId = 1;
+        int visitId = 1;
+        for (int ownerId = 1; ownerId <= ownersCount; ownerId++) {
+            Owner owner = new Owner();
+            owner.setId(ownerId);
+            owner.setFirstName(pick(FIRST_NAMES, random));
+            owner.setLastName(pick(LAST_NAMES, random));
+            owner.setAddress("%d %s St.".formatted(100 + random.nextInt(9_900), pick(LAST_NAMES, random)));
+            owner.setCity(pick(CITIES, random));
+            owner.setTelephone("608555%04d".formatted(random.nextInt(10_000)));
+            for (int p = 0; p < petsPerOwner; p++) {
+                Pet pet = new Pet();
+                pet.setId(petId++);
+                pet.setName(pick(PET_NAMES, random));
+                pet.setBirthDate(FIRST_DATE.plusDays(random.nextInt(5_000)));
+                pet.setType(pick(types, random));
+                for (int v = 0; v < visitsPerPet; v++) {
+                    Visit visit = new Visit();
+                    visit.setId(visitId++);
+                    visit.setDate(pet.getBirthDate().plusDays(random.nextInt(3_000)));
+                    visit.setDescription(pick(VISIT_DESCRIPTIONS, random));
+                    pet.addVisit(visit);
+                }
+                owner.addPet(pet);
+            }
+            owners.add(owner);
+        }
+        return owners;
+    }
+
+    public static List<Pet> pets(List<Owner> owners) {
+        return owners.stream()
+            .flatMap(owner -> owner.getPets().stream())
+            .toList();
+    }
+
+    public static List<Visit> visits(List<Owner> owners) {
+        return pets(owners).stream()
+            .flatMap(pet -> pet.getVisits().stream())
+            .toList();
+    }
+
+    /**
+     * @return {@code vetsCount} vets having up to {@code maxSpecialtiesPerVet} specialties each
+     */
+    public static List<Vet> vets(int vetsCount, int maxSpecialtiesPerVet) {
+        Random random = new Random(42);
+        List<Specialty> specialties = new ArrayList<>();
+        for (String specialtyName : SPECIALTIES) {
+            Specialty specialty = new Specialty();
+            specialty.setId(specialties.size() + 1);
+            specialty.setName(specialtyName);
+            specialties.add(specialty);
+        }
+
+        List<Vet> vets = new ArrayList<>(vetsCount);
+        for (int vetId = 1; vetId <= vetsCount; vetId++) {
+            Vet vet = new Vet();
+            vet.setId(vetId);
+            vet.setFirstName(pick(FIRST_NAMES, random));
+            vet.setLastName(pick(LAST_NAMES, random));
+            int specialtiesCount = random.nextInt(Math.min(maxSpecialtiesPerVet, specialties.size()) + 1);
+            for (int s = 0; s < specialtiesCount; s++) {
+                vet.addSpecialty(specialties.get((vetId + s) % specialties.size()));
+            }
+            vets.add(vet);
+        }
+        return vets;
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
@@ -0,0 +1,104 @@
+package org.springframework.samples.petclinic.mapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.samples.petclinic.rest.dto.VetDto;
+import org.springframework.samples.petclinic.rest.dto.VisitDto;
+
+/**
+ * Measures the collection mappings behind the list endpoints on {@link ClinicGraphs} of 100 owners (or vets) with
+ * the given number of pets per owner and visits per pet. The mappers are wired by Spring just like in the application,
+ * as the generated implementations depend on each other. The vets don't depend on the parameters.
+ *
+ * @author Vladimir Plizga
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private static final int OWNERS_COUNT = 100;
+    private static final int VETS_COUNT = 100;
+
+    @Param({"1", "5"})
+    private int petsPerOwner;
+
+    @Param({"0", "10"})
+    private int visitsPerPet;
+
+    private AnnotationConfigApplicationContext mappersContext;
+    private OwnerMapper ownerMapper;
+    private PetMapper petMapper;
+    private VisitMapper visitMapper;
+    private VetMapper vetMapper;
+
+    private List<Owner> owners;
+    private List<Pet> pets;
+    private List<Visit> visits;
+    private List<Vet> vets;
+
+    @Setup
+    public void setUp() {
+        mappersContext = new AnnotationConfigApplicationContext(OwnerMapperImpl.class, PetMapperImpl.class,
+            VisitMapperImpl.class, VetMapperImpl.class, SpecialtyMapperImpl.class);
+        ownerMapper = mappersContext.getBean(OwnerMapper.class);
+        petMapper = mappersContext.getBean(PetMapper.class);
+        visitMapper = mappersContext.getBean(VisitMapper.class);
+        vetMapper = mappersContext.getBean(VetMapper.class);
+
+        owners = ClinicGraphs.owners(OWNERS_COUNT, petsPerOwner, visitsPerPet);
+        pets = ClinicGraphs.pets(owners);
+        visits = ClinicGraphs.visits(owners);
+        vets = ClinicGraphs.vets(VETS_COUNT, 3);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mappersContext.close();
+    }
+
+    @Benchmark
+    public List<OwnerDto> ownersToDtos() {
+        return ownerMapper.toOwnerDtoCollection(owners);
+    }
+
+    @Benchmark
+    public Collection<PetDto> petsToDtos() {
+        return petMapper.toPetsDto(pets);
+    }
+
+    @Benchmark
+    public Collection<VisitDto> visitsToDtos() {
+        return visitMapper.toVisitsDto(visits);
+    }
+
+    @Benchmark
+    public Collection<VetDto> vetsToDtos() {
+        return vetMapper.toVetDtos(vets);
+    }
+}
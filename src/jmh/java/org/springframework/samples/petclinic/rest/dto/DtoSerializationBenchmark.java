@@ -0,0 +1,84 @@
+package org.springframework.samples.petclinic.rest.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.samples.petclinic.mapper.ClinicGraphs;
+import org.springframework.samples.petclinic.mapper.OwnerMapper;
+import org.springframework.samples.petclinic.mapper.OwnerMapperImpl;
+import org.springframework.samples.petclinic.mapper.PetMapperImpl;
+import org.springframework.samples.petclinic.mapper.SpecialtyMapperImpl;
+import org.springframework.samples.petclinic.mapper.VetMapper;
+import org.springframework.samples.petclinic.mapper.VetMapperImpl;
+import org.springframework.samples.petclinic.mapper.VisitMapperImpl;
+
+/**
+ * Measures Jackson serialization of the DTO lists returned by the list endpoints, mapped from {@link ClinicGraphs} of
+ * 100 owners (or vets) with the given number of pets per owner and visits per pet. The object mapper is configured
+ * the way Spring Boot configures it for the application.
+ *
+ * @author Vladimir Plizga
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoSerializationBenchmark {
+
+    private static final int OWNERS_COUNT = 100;
+    private static final int VETS_COUNT = 100;
+
+    @Param({"1", "5"})
+    private int petsPerOwner;
+
+    @Param({"0", "10"})
+    private int visitsPerPet;
+
+    private ObjectMapper objectMapper;
+    private List<OwnerDto> owners;
+    private List<VetDto> vets;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        try (var mappersContext = new AnnotationConfigApplicationContext(OwnerMapperImpl.class, PetMapperImpl.class,
+            VisitMapperImpl.class, VetMapperImpl.class, SpecialtyMapperImpl.class)) {
+            owners = mappersContext.getBean(OwnerMapper.class)
+                .toOwnerDtoCollection(ClinicGraphs.owners(OWNERS_COUNT, petsPerOwner, visitsPerPet));
+            vets = new ArrayList<>(mappersContext.getBean(VetMapper.class)
+                .toVetDtos(ClinicGraphs.vets(VETS_COUNT, 3)));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeOwners() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(owners);
+    }
+
+    @Benchmark
+    public byte[] serializeVets() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(vets);
+    }
+}
@@ -0,0 +1,431 @@
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+
+/**
+ * Measures every {@link ClinicService} method on a synthetic clinic seeded by
+ * {@code org.springframework.samples.petclinic.util.seed.SyntheticDataSeeder}, for each combination of the embedded
+ * database and the persistence profile. <p/>
+ * The ids to look up are picked uniformly from the seeded rows, and the last names are picked from the owners, so the
+ * lookups follow the skew of the data. Saves update an entity owned by the calling thread the way the REST controllers
+ * do (a detached copy loaded earlier), while deletes are measured together with the saves of the entities they delete
+ * to keep the data intact. <p/>
+ * The benchmark can be run with JMH as is, yet {@link ClinicServiceBenchmarkRunner} runs it far quicker for all the
+ * profiles and thread counts, reusing the application context across the runs of the same profile.
+ *
+ * @author Vladimir Plizga
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClinicServiceBenchmark {
+
+    private static final int MAX_WRITE_ATTEMPTS = 10;
+
+    @Param({"h2", "hsqldb"})
+    private String database;
+
+    @Param({"jdbc", "jpa", "spring-data-jpa"})
+    private String persistence;
+
+    @Param({"1000"})
+    private int owners;
+
+    private ClinicService clinicService;
+    private int[] ownerIds;
+    private int[] petIds;
+    private int[] visitIds;
+    private int[] vetIds;
+    private int[] petTypeIds;
+    private int[] specialtyIds;
+    private List<String> lastNames;
+    private List<String> specialtyNames;
+
+    @Setup
+    public void setUp() {
+        ConfigurableApplicationContext context = ClinicContexts.get(database, persistence, owners);
+        clinicService = context.getBean(ClinicService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ownerIds = queryIds(jdbcTemplate, "owners");
+        petIds = queryIds(jdbcTemplate, "pets");
+        visitIds = queryIds(jdbcTemplate, "visits");
+        vetIds = queryIds(jdbcTemplate, "vets");
+        petTypeIds = queryIds(jdbcTemplate, "types");
+        specialtyIds = queryIds(jdbcTemplate, "specialties");
+        lastNames = jdbcTemplate.queryForList("SELECT last_name FROM owners", String.class);
+        specialtyNames = jdbcTemplate.queryForList("SELECT name FROM specialties", String.class);
+    }
+
+    private static int[] queryIds(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Integer.class).stream()
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    /**
+     * Random picks and the entities updated by a single thread. Each thread owns different entities
+     * to avoid measuring lock contention of the updates.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private SplittableRandom random;
+        private Owner owner;
+        private Pet pet;
+        private Visit visit;
+        private Vet vet;
+        private PetType petType;
+        private Specialty specialty;
+
+        @Setup
+        public void setUp(ClinicServiceBenchmark benchmark, ThreadParams threadParams) {
+            int thread = threadParams.getThreadIndex();
+            ClinicService clinicService = benchmark.clinicService;
+            random = new SplittableRandom(thread);
+            owner = clinicService.findOwnerById(pick(benchmark.ownerIds, thread));
+            pet = clinicService.findPetById(pick(benchmark.petIds, thread));
+            visit = clinicService.findVisitById(pick(benchmark.visitIds, thread));
+            vet = clinicService.findVetById(pick(benchmark.vetIds, thread));
+            petType = new PetType();
+            petType.setName("benchmark-" + thread);
+            clinicService.savePetType(petType);
+            specialty = new Specialty();
+            specialty.setName("benchmark-" + thread);
+            clinicService.saveSpecialty(specialty);
+        }
+
+        @TearDown
+        public void tearDown(ClinicServiceBenchmark benchmark) {
+            benchmark.clinicService.deletePetType(petType);
+            benchmark.clinicService.deleteSpecialty(specialty);
+        }
+
+        private static int pick(int[] ids, int thread) {
+            return ids[thread % ids.length];
+        }
+
+        int anyOf(int[] ids) {
+            return ids[random.nextInt(ids.length)];
+        }
+
+        <T> T anyOf(List<T> values) {
+            return values.get(random.nextInt(values.size()));
+        }
+
+        String anyTelephone() {
+            return "%010d".formatted(random.nextLong(10_000_000_000L));
+        }
+    }
+
+    // owners
+
+    @Benchmark
+    public Owner findOwnerById(ThreadState state) {
+        return clinicService.findOwnerById(state.anyOf(ownerIds));
+    }
+
+    @Benchmark
+    public Collection<Owner> findOwnerByLastName(ThreadState state) {
+        return clinicService.findOwnerByLastName(state.anyOf(lastNames));
+    }
+
+    @Benchmark
+    public Collection<Owner> findAllOwners() {
+        return clinicService.findAllOwners();
+    }
+
+    @Benchmark
+    public void saveOwner(ThreadState state) {
+        state.owner.setTelephone(state.anyTelephone());
+        retrying(() -> clinicService.saveOwner(state.owner));
+    }
+
+    @Benchmark
+    public void saveAndDeleteOwner(ThreadState state) {
+        Owner owner = new Owner();
+        owner.setFirstName("Benchmark");
+        owner.setLastName("Owner");
+        owner.setAddress("1 Benchmark St.");
+        owner.setCity("Benchmark");
+        owner.setTelephone(state.anyTelephone());
+        retrying(() -> {
+            owner.setId(null);
+            clinicService.saveOwner(owner);
+        });
+        retrying(() -> clinicService.deleteOwner(owner));
+    }
+
+    // pets
+
+    @Benchmark
+    public Pet findPetById(ThreadState state) {
+        return clinicService.findPetById(state.anyOf(petIds));
+    }
+
+    @Benchmark
+    public Collection<Pet> findAllPets() {
+        return clinicService.findAllPets();
+    }
+
+    @Benchmark
+    public void savePet(ThreadState state) {
+        state.pet.setName("Benchmark" + state.random.nextInt(100));
+        retrying(() -> clinicService.savePet(state.pet));
+    }
+
+    @Benchmark
+    public void saveAndDeletePet(ThreadState state) {
+        Pet pet = new Pet();
+        pet.setName("Benchmark");
+        pet.setBirthDate(LocalDate.of(2020, 1, 1));
+        PetType type = new PetType();
+        type.setId(state.anyOf(petTypeIds));
+        pet.setType(type);
+        Owner owner = new Owner();
+        owner.setId(state.owner.getId());
+        pet.setOwner(owner);
+        retrying(() -> {
+            pet.setId(null);
+            clinicService.savePet(pet);
+        });
+        retrying(() -> clinicService.deletePet(pet));
+    }
+
+    // visits
+
+    @Benchmark
+    public Visit findVisitById(ThreadState state) {
+        return clinicService.findVisitById(state.anyOf(visitIds));
+    }
+
+    @Benchmark
+    public Collection<Visit> findVisitsByPetId(ThreadState state) {
+        return clinicService.findVisitsByPetId(state.anyOf(petIds));
+    }
+
+    @Benchmark
+    public Collection<Visit> findAllVisits() {
+        return clinicService.findAllVisits();
+    }
+
+    @Benchmark
+    public void saveVisit(ThreadState state) {
+        state.visit.setDescription("benchmark " + state.random.nextInt(100));
+        retrying(() -> clinicService.saveVisit(state.visit));
+    }
+
+    @Benchmark
+    public void saveAndDeleteVisit(ThreadState state) {
+        Visit visit = new Visit();
+        visit.setDate(LocalDate.of(2024, 1, 1));
+        visit.setDescription("benchmark");
+        Pet pet = new Pet();
+        pet.setId(state.pet.getId());
+        visit.setPet(pet);
+        retrying(() -> {
+            visit.setId(null);
+            clinicService.saveVisit(visit);
+        });
+        retrying(() -> clinicService.deleteVisit(visit));
+    }
+
+    // vets
+
+    @Benchmark
+    public Vet findVetById(ThreadState state) {
+        return clinicService.findVetById(state.anyOf(vetIds));
+    }
+
+    @Benchmark
+    public Collection<Vet> findVets() {
+        return clinicService.findVets();
+    }
+
+    @Benchmark
+    public Collection<Vet> findAllVets() {
+        return clinicService.findAllVets();
+    }
+
+    @Benchmark
+    public void saveVet(ThreadState state) {
+        state.vet.setFirstName("Benchmark" + state.random.nextInt(100));
+        retrying(() -> clinicService.saveVet(state.vet));
+    }
+
+    @Benchmark
+    public void saveAndDeleteVet(ThreadState state) {
+        Vet vet = new Vet();
+        vet.setFirstName("Benchmark");
+        vet.setLastName("Vet");
+        retrying(() -> {
+            vet.setId(null);
+            clinicService.saveVet(vet);
+        });
+        retrying(() -> clinicService.deleteVet(vet));
+    }
+
+    // pet types
+
+    @Benchmark
+    public PetType findPetTypeById(ThreadState state) {
+        return clinicService.findPetTypeById(state.anyOf(petTypeIds));
+    }
+
+    @Benchmark
+    public Collection<PetType> findAllPetTypes() {
+        return clinicService.findAllPetTypes();
+    }
+
+    @Benchmark
+    public Collection<PetType> findPetTypes() {
+        return clinicService.findPetTypes();
+    }
+
+    @Benchmark
+    public void savePetType(ThreadState state) {
+        retrying(() -> clinicService.savePetType(state.petType));
+    }
+
+    @Benchmark
+    public void saveAndDeletePetType() {
+        PetType petType = new PetType();
+        petType.setName("benchmark");
+        retrying(() -> {
+            petType.setId(null);
+            clinicService.savePetType(petType);
+        });
+        retrying(() -> clinicService.deletePetType(petType));
+    }
+
+    // specialties
+
+    @Benchmark
+    public Specialty findSpecialtyById(ThreadState state) {
+        return clinicService.findSpecialtyById(state.anyOf(specialtyIds));
+    }
+
+    @Benchmark
+    public Collection<Specialty> findAllSpecialties() {
+        return clinicService.findAllSpecialties();
+    }
+
+    @Benchmark
+    public List<Specialty> findSpecialtiesByNameIn(ThreadState state) {
+        return clinicService.findSpecialtiesByNameIn(Set.of(state.anyOf(specialtyNames)));
+    }
+
+    @Benchmark
+    public void saveSpecialty(ThreadState state) {
+        retrying(() -> clinicService.saveSpecialty(state.specialty));
+    }
+
+    @Benchmark
+    public void saveAndDeleteSpecialty() {
+        Specialty specialty = new Specialty();
+        specialty.setName("benchmark");
+        retrying(() -> {
+            specialty.setId(null);
+            clinicService.saveSpecialty(specialty);
+        });
+        retrying(() -> clinicService.deleteSpecialty(specialty));
+    }
+
+    /**
+     * Repeats a write rolled back due to concurrent writes, as the serializable transactions of the application fail
+     * rather than wait on some databases. The retries are a part of the measured cost then. A failed save of a new
+     * entity is repeated from scratch as its id may have been assigned before the rollback.
+     */
+    private static void retrying(Runnable write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write.run();
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the application context of the last profile alive, so that runs of the same profile in the same JVM
+     * don't start the application and seed the data again
+     */
+    static final class ClinicContexts {
+        private static String currentKey;
+        private static ConfigurableApplicationContext current;
+        private static int started;
+
+        private ClinicContexts() {
+        }
+
+        static synchronized ConfigurableApplicationContext get(String database, String persistence, int owners) {
+            String key = database + "," + persistence + "," + owners;
+            if (key.equals(currentKey)) {
+                return current;
+            }
+            close();
+            // a fresh database every time, as the one of a failed start would be left behind half-initialized
+            String name = "benchmark" + (++started);
+            String url = database.equals("h2")
+                ? "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+                : "jdbc:hsqldb:mem:" + name;
+            // command line arguments override the profiles activated by application.properties;
+            // the web application is started too as some controllers need the servlet context
+            current = new SpringApplicationBuilder(PetClinicApplication.class)
+                .run("--spring.profiles.active=" + database + "," + persistence,
+                    "--spring.datasource.url=" + url,
+                    "--server.port=0",
+                    "--spring.jmx.enabled=false",
+                    "--logging.level.root=WARN",
+                    "--seed-owners=" + owners,
+                    "--seed-vets=" + Math.max(owners / 10, 1));
+            currentKey = key;
+            return current;
+        }
+
+        static synchronized void close() {
+            if (current != null) {
+                // the in-memory databases outlive their connections otherwise
+                current.getBean(JdbcTemplate.class).execute("SHUTDOWN");
+                current.close();
+                current = null;
+                currentKey = null;
+            }
+        }
+    }
+}
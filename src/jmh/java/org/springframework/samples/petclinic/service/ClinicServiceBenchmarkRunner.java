@@ -0,0 +1,240 @@
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs {@link ClinicServiceBenchmark} for every database and persistence profile at every number of threads, and
+ * compares the profiles in a report. <p/>
+ * Every profile is measured in a JVM of its own, so that the JIT profile of one doesn't pollute the others. Within
+ * that JVM the benchmarks are run without forking ({@code forks = 0}), so that the application is started and its
+ * data are seeded only once for all the methods and thread counts. <p/>
+ * The options are passed as system properties (see the {@code clinic-service} execution of the {@code jmh} Maven
+ * profile). The raw JMH results land in {@code results/clinic-service-<database>-<persistence>-<threads>t.json},
+ * the comparison in {@code results/clinic-service-report.md} and {@code results/clinic-service-report.csv}.
+ *
+ * @author Vladimir Plizga
+ */
+public final class ClinicServiceBenchmarkRunner {
+
+    private ClinicServiceBenchmarkRunner() {
+    }
+
+    /**
+     * Measures all the profiles one by one when called without arguments, or the given database and persistence
+     * profile when called with them
+     */
+    public static void main(String[] args) throws RunnerException, IOException, InterruptedException {
+        List<String> databases = listProperty("clinic-service.databases", "h2,hsqldb");
+        List<String> persistences = listProperty("clinic-service.persistences", "jdbc,jpa,spring-data-jpa");
+        List<Integer> threadCounts = listProperty("clinic-service.threads", "1,8,64").stream()
+            .map(Integer::valueOf)
+            .toList();
+        String owners = System.getProperty("clinic-service.owners", "1000");
+        Path resultsDir = Path.of(System.getProperty("clinic-service.results", "results"));
+        Files.createDirectories(resultsDir);
+
+        if (args.length == 2) {
+            measure(args[0], args[1], threadCounts, owners, resultsDir);
+            return;
+        }
+
+        List<Row> rows = new ArrayList<>();
+        for (String database : databases) {
+            for (String persistence : persistences) {
+                for (int threads : threadCounts) {
+                    // so that a failed run doesn't report the results of a previous one
+                    Files.deleteIfExists(resultFile(resultsDir, database, persistence, threads));
+                }
+                int exitCode = measureInChildJvm(database, persistence);
+                if (exitCode != 0) {
+                    System.err.printf("Measuring %s,%s failed with exit code %d%n", database, persistence, exitCode);
+                }
+                for (int threads : threadCounts) {
+                    Path resultFile = resultFile(resultsDir, database, persistence, threads);
+                    if (Files.exists(resultFile)) {
+                        rows.addAll(Row.read(database + "," + persistence, resultFile));
+                    }
+                }
+            }
+        }
+
+        writeCsv(rows, resultsDir.resolve("clinic-service-report.csv"));
+        writeMarkdown(rows, threadCounts, owners, resultsDir.resolve("clinic-service-report.md"));
+        System.out.println("Comparison written to " + resultsDir.resolve("clinic-service-report.md").toAbsolutePath());
+    }
+
+    private static void measure(String database, String persistence, List<Integer> threadCounts, String owners,
+                                Path resultsDir) throws RunnerException {
+        String methods = System.getProperty("clinic-service.methods", ".*");
+        int warmupIterations = Integer.getInteger("clinic-service.warmup", 2);
+        int measurementIterations = Integer.getInteger("clinic-service.measurement", 3);
+        try {
+            for (int threads : threadCounts) {
+                Options options = new OptionsBuilder()
+                    .include(ClinicServiceBenchmark.class.getName() + "\\.(" + methods + ")$")
+                    .param("database", database)
+                    .param("persistence", persistence)
+                    .param("owners", owners)
+                    .threads(threads)
+                    .forks(0)
+                    .warmupIterations(warmupIterations)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(measurementIterations)
+                    .measurementTime(TimeValue.seconds(1))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultFile(resultsDir, database, persistence, threads).toString())
+                    .build();
+                new Runner(options).run();
+            }
+        } finally {
+            ClinicServiceBenchmark.ClinicContexts.close();
+        }
+    }
+
+    /**
+     * Runs this class for the given profile in a new JVM with the same options and class path
+     */
+    private static int measureInChildJvm(String database, String persistence)
+        throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-classpath");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ClinicServiceBenchmarkRunner.class.getName());
+        command.add(database);
+        command.add(persistence);
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    private static Path resultFile(Path resultsDir, String database, String persistence, int threads) {
+        return resultsDir.resolve("clinic-service-%s-%s-%dt.json".formatted(database, persistence, threads));
+    }
+
+    private static List<String> listProperty(String name, String defaultValue) {
+        return Arrays.stream(System.getProperty(name, defaultValue).split(","))
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .toList();
+    }
+
+    private static void writeCsv(List<Row> rows, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("method,profile,threads,ops_per_second,mean_us,p50_us,p99_us,p999_us");
+        for (Row row : rows) {
+            lines.add(String.format(Locale.ROOT, "%s,\"%s\",%d,%.1f,%.1f,%.1f,%.1f,%.1f", row.method(),
+                row.profile(), row.threads(), row.opsPerSecond(), row.meanMicros(), row.p50Micros(), row.p99Micros(),
+                row.p999Micros()));
+        }
+        Files.write(file, lines);
+    }
+
+    /**
+     * Writes a table per thread count, with the methods as rows and the profiles as columns. Every cell holds
+     * the throughput and the 99th percentile of the latency, the best throughput of a row is in bold.
+     */
+    private static void writeMarkdown(List<Row> rows, List<Integer> threadCounts, String owners, Path file)
+        throws IOException {
+        Set<String> profiles = new LinkedHashSet<>();
+        Set<String> methods = new LinkedHashSet<>();
+        Map<String, Row> rowsByKey = new LinkedHashMap<>();
+        for (Row row : rows) {
+            profiles.add(row.profile());
+            methods.add(row.method());
+            rowsByKey.put(row.method() + "|" + row.profile() + "|" + row.threads(), row);
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("# ClinicService benchmark\n\n")
+            .append("Synthetic clinic of ").append(owners).append(" owners. ")
+            .append("Cells hold throughput in ops/s and p99 latency in µs, the best throughput of a row is bold; ")
+            .append("missing cells are failed or skipped runs.\n");
+        for (int threads : threadCounts) {
+            report.append("\n## ").append(threads).append(threads == 1 ? " thread" : " threads").append("\n\n");
+            report.append("| method |");
+            profiles.forEach(profile -> report.append(' ').append(profile).append(" |"));
+            report.append("\n|---|");
+            profiles.forEach(profile -> report.append("---:|"));
+            report.append('\n');
+            for (String method : methods) {
+                List<Row> cells = profiles.stream()
+                    .map(profile -> rowsByKey.get(method + "|" + profile + "|" + threads))
+                    .toList();
+                double best = cells.stream()
+                    .filter(cell -> cell != null)
+                    .mapToDouble(Row::opsPerSecond)
+                    .max()
+                    .orElse(Double.NaN);
+                report.append("| ").append(method).append(" |");
+                for (Row cell : cells) {
+                    if (cell == null) {
+                        report.append(" – |");
+                        continue;
+                    }
+                    String throughput = String.format(Locale.ROOT, "%,.0f", cell.opsPerSecond());
+                    if (cell.opsPerSecond() == best) {
+                        throughput = "**" + throughput + "**";
+                    }
+                    report.append(String.format(Locale.ROOT, " %s (%,.0f) |", throughput, cell.p99Micros()));
+                }
+                report.append('\n');
+            }
+        }
+        Files.writeString(file, report);
+    }
+
+    /**
+     * Outcome of a single benchmark method of a profile. The throughput is derived from the sampled latencies
+     * as all the threads call the method back to back.
+     */
+    private record Row(String method, String profile, int threads, double opsPerSecond, double meanMicros,
+                       double p50Micros, double p99Micros, double p999Micros) {
+
+        /**
+         * Reads the rows of a profile from a file of JMH results in JSON format
+         */
+        static List<Row> read(String profile, Path resultFile) throws IOException {
+            List<Row> rows = new ArrayList<>();
+            for (JsonNode result : new ObjectMapper().readTree(resultFile.toFile())) {
+                String benchmark = result.get("benchmark").asText();
+                int threads = result.get("threads").asInt();
+                JsonNode metric = result.get("primaryMetric");
+                double toMicros = switch (metric.get("scoreUnit").asText()) {
+                    case "ns/op" -> 0.001;
+                    case "us/op" -> 1;
+                    case "ms/op" -> 1_000;
+                    case "s/op" -> 1_000_000;
+                    default -> throw new IllegalArgumentException("Not a sample time result: " + benchmark);
+                };
+                double mean = metric.get("score").asDouble() * toMicros;
+                JsonNode percentiles = metric.get("scorePercentiles");
+                rows.add(new Row(benchmark.substring(benchmark.lastIndexOf('.') + 1), profile, threads,
+                    threads * 1_000_000 / mean, mean,
+                    percentiles.get("50.0").asDouble() * toMicros,
+                    percentiles.get("99.0").asDouble() * toMicros,
+                    percentiles.get("99.9").asDouble() * toMicros));
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.samples.petclinic.rest.dto.PetTypeDto;
+
+/**
+ * Measures the cost of {@link PetListPostProcessor#logPets} with TRACE level disabled (as configured in
+ * {@code logback.xml}). Run with {@code -prof gc} to make sure that {@code gc.alloc.rate.norm} is zero.
+ *
+ * @author Vladimir Plizga
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PetListLoggingBenchmark {
+
+    @Param({"10", "1000"})
+    private int petsCount;
+
+    private PetListPostProcessor postProcessor;
+    private List<PetDto> pets;
+
+    @Setup
+    public void setUp() {
+        postProcessor = new PetListPostProcessor(new SimpleMeterRegistry(), 100_000);
+        PetTypeDto type = new PetTypeDto();
+        type.setId(1);
+        type.setName("cat");
+        pets = new ArrayList<>(petsCount);
+        for (int i = 1; i <= petsCount; i++) {
+            PetDto pet = new PetDto();
+            pet.setId(i);
+            pet.setName("Pet" + i);
+            pet.setBirthDate(LocalDate.of(2015, 1, 1).plusDays(i));
+            pet.setType(type);
+            pets.add(pet);
+        }
+    }
+
+    @Benchmark
+    public void logPetsWithTraceDisabled() {
+        postProcessor.logPets(pets);
+    }
+}
@@ -0,0 +1,63 @@
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead {@link CallMonitoringAspect} adds to every repository call, both in a single thread and with
+ * several threads hammering the same method.
+ *
+ * @author Vladimir Plizga
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CallMonitoringBenchmark {
+
+    private static final long CALL_DURATION_NANOS = 250_000;
+
+    private CallMonitoringAspect aspect;
+    private Method method;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        aspect = new CallMonitoringAspect(new SimpleMeterRegistry());
+        method = Object.class.getMethod("hashCode");
+    }
+
+    @Benchmark
+    public void recordCall() {
+        aspect.record(method, CALL_DURATION_NANOS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordCallConcurrently() {
+        aspect.record(method, CALL_DURATION_NANOS);
+    }
+
+    /**
+     * The same as {@link #recordCall()} plus the two {@code System.nanoTime()} calls the aspect makes around the call
+     */
+    @Benchmark
+    public void timeAndRecordCall() {
+        long start = System.nanoTime();
+        aspect.record(method, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,250 @@
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.samples.petclinic.load.RequestMix.Param;
+import org.springframework.samples.petclinic.load.RequestMix.RequestTemplate;
+
+/**
+ * Open-loop HTTP load driver replaying a {@link RequestMix} against a running application. <p/>
+ * Requests are started on a fixed schedule of {@code load.rate} requests per second regardless of how fast the
+ * responses come back, each one on a virtual thread of its own, so a slow server faces a growing number of
+ * concurrent requests just like it would with real users. Latencies are measured from the scheduled start of a
+ * request rather than from its actual sending, which keeps the scheduler's own lag and the server's queueing in the
+ * picture (i.e. avoids the coordinated omission). Requests exceeding {@code load.max-in-flight} are dropped and
+ * counted rather than queued. <p/>
+ * The options are passed as system properties (see the {@code load} Maven profile). A run writes its summary into
+ * {@code results/load-<timestamp>.json}; called as {@code compare <baseline.json> <candidate.json>} the driver
+ * prints the differences between two such summaries instead.
+ *
+ * @author Vladimir Plizga
+ */
+public final class LoadDriver {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final URI baseUri;
+    private final RequestMix mix;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final long seed;
+    private final Semaphore inFlight;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Stats total = new Stats();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private LoadDriver(URI baseUri, RequestMix mix, double rate, Duration warmup, Duration duration, Duration timeout,
+                       long seed, int maxInFlight) {
+        if (rate <= 0 || duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("The rate and the duration must be positive");
+        }
+        this.baseUri = baseUri;
+        this.mix = mix;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.timeout = timeout;
+        this.seed = seed;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 3 && args[0].equals("compare")) {
+            LoadSummary baseline = LoadSummary.read(Path.of(args[1]));
+            LoadSummary candidate = LoadSummary.read(Path.of(args[2]));
+            System.out.println(LoadSummary.compare(baseline, candidate));
+            return;
+        }
+        if (args.length != 0) {
+            System.err.println("Usage: LoadDriver [compare <baseline.json> <candidate.json>]");
+            System.exit(2);
+        }
+
+        Path requestsFile = Path.of(System.getProperty("load.requests", "src/load/requests.jsonl"));
+        String mixName = System.getProperty("load.mix", "browse");
+        RequestMix mix = RequestMix.read(requestsFile, mixName, parseParams(System.getProperty("load.params", "")));
+        LoadDriver driver = new LoadDriver(
+            URI.create(System.getProperty("load.base-url", "http://localhost:9966/petclinic")),
+            mix,
+            Double.parseDouble(System.getProperty("load.rate", "100")),
+            Duration.ofSeconds(Long.parseLong(System.getProperty("load.warmup", "10"))),
+            Duration.ofSeconds(Long.parseLong(System.getProperty("load.duration", "60"))),
+            Duration.ofMillis(Long.parseLong(System.getProperty("load.timeout", "5000"))),
+            Long.parseLong(System.getProperty("load.seed", "42")),
+            Integer.parseInt(System.getProperty("load.max-in-flight", "10000"))
+        );
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        driver.run();
+        LoadSummary summary = driver.summarize(startedAt.toString());
+
+        Path resultsDir = Path.of(System.getProperty("load.results", "results"));
+        Files.createDirectories(resultsDir);
+        Path resultFile = resultsDir.resolve("load-" + mixName + "-" + FILE_TIMESTAMP.format(startedAt) + ".json");
+        summary.write(resultFile);
+        LoadSummary.Latency latency = summary.total().latency();
+        System.out.printf("Scheduled %d, dropped %d, completed %d with %d errors; p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+            summary.scheduled(), summary.dropped(), summary.total().requests(), summary.total().errors(),
+            latency.p50() / 1000.0, latency.p99() / 1000.0, latency.max() / 1000.0);
+        System.out.println("Summary written into " + resultFile);
+    }
+
+    /**
+     * Parses params overriding the ones of the requests file, like {@code ownerId=1-1000000,lastName=Davis|Black}
+     */
+    private static Map<String, Param> parseParams(String text) {
+        Map<String, Param> params = new LinkedHashMap<>();
+        for (String param : text.split(",")) {
+            if (!param.isBlank()) {
+                String[] nameAndValue = param.split("=", 2);
+                params.put(nameAndValue[0].trim(), Param.parse(nameAndValue[1].trim()));
+            }
+        }
+        return params;
+    }
+
+    private void run() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        SplittableRandom random = new SplittableRandom(seed);
+        long intervalNanos = Math.round(TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measurementStart = start + warmup.toNanos();
+        long end = measurementStart + duration.toNanos();
+        System.out.printf("Replaying %s mix at %.1f req/s against %s: %ds of warmup, %ds of measurement%n",
+            mix.name(), rate, baseUri, warmup.toSeconds(), duration.toSeconds());
+
+        // closing waits for the requests in flight, each one limited by the timeout
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long delay = intendedStart - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                RequestTemplate template = mix.pick(random);
+                HttpRequest request = template.toRequest(baseUri, random, timeout);
+                boolean measured = intendedStart >= measurementStart;
+                if (measured) {
+                    scheduled.increment();
+                }
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        dropped.increment();
+                    }
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        send(client, template, request, intendedStart, measured);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        client.close();
+    }
+
+    private void send(HttpClient client, RequestTemplate template, HttpRequest request, long intendedStart,
+                      boolean measured) {
+        long sentAt = System.nanoTime();
+        String outcome;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            outcome = String.valueOf(response.statusCode());
+        } catch (HttpTimeoutException e) {
+            outcome = "timeout";
+        } catch (IOException e) {
+            outcome = e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long receivedAt = System.nanoTime();
+        if (measured) {
+            long latency = TimeUnit.NANOSECONDS.toMicros(receivedAt - intendedStart);
+            long serviceTime = TimeUnit.NANOSECONDS.toMicros(receivedAt - sentAt);
+            stats.computeIfAbsent(template.name(), name -> new Stats()).record(outcome, latency, serviceTime);
+            total.record(outcome, latency, serviceTime);
+        }
+    }
+
+    private LoadSummary summarize(String startedAt) {
+        List<LoadSummary.Endpoint> endpoints = new ArrayList<>();
+        for (RequestTemplate template : mix.templates()) {
+            Stats endpointStats = stats.get(template.name());
+            if (endpointStats != null) {
+                endpoints.add(endpointStats.summarize(template.name(), template.method(), template.path()));
+            }
+        }
+        return new LoadSummary(startedAt, baseUri.toString(), mix.name(), rate, duration.toSeconds(),
+            warmup.toSeconds(), seed, scheduled.sum(), dropped.sum(), total.summarize("total", null, null),
+            endpoints);
+    }
+
+    /**
+     * Measurements of the requests to an endpoint, recorded concurrently from the virtual threads
+     */
+    private class Stats {
+        private final Histogram latency = new ConcurrentHistogram(3);
+        private final Histogram serviceTime = new ConcurrentHistogram(3);
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+
+        void record(String outcome, long latencyMicros, long serviceTimeMicros) {
+            latency.recordValue(latencyMicros);
+            serviceTime.recordValue(serviceTimeMicros);
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+            // anything but 2xx and 3xx statuses, including timeouts and connection failures
+            if (outcome.length() != 3 || !(outcome.startsWith("2") || outcome.startsWith("3"))) {
+                errors.increment();
+            }
+        }
+
+        LoadSummary.Endpoint summarize(String name, String method, String path) {
+            Map<String, Long> statuses = new TreeMap<>();
+            outcomes.forEach((outcome, count) -> statuses.put(outcome, count.sum()));
+            long requests = latency.getTotalCount();
+            long failed = errors.sum();
+            return new LoadSummary.Endpoint(name, method, path, requests, failed,
+                (requests - failed) / (double) duration.toSeconds(), statuses,
+                LoadSummary.Latency.of(latency), LoadSummary.Latency.of(serviceTime), LoadSummary.encode(latency));
+        }
+    }
+}
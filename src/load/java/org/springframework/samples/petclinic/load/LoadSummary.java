@@ -0,0 +1,134 @@
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Machine-readable outcome of a {@link LoadDriver} run, stored as JSON in the {@code results/} directory.
+ * All the latencies are in microseconds.
+ *
+ * @author Vladimir Plizga
+ */
+record LoadSummary(String startedAt, String baseUrl, String mix, double targetRate, double durationSeconds,
+                   double warmupSeconds, long seed, long scheduled, long dropped, Endpoint total,
+                   List<Endpoint> endpoints) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * @param throughput  successful (2xx and 3xx) responses per second
+     * @param latency     time from the intended start of a request till its response, i.e. including the waiting
+     *                    caused by the server falling behind the target rate (no coordinated omission)
+     * @param serviceTime time from the actual sending of a request till its response
+     * @param histogram   base64 of the compressed HdrHistogram of {@code latency}, for further processing
+     */
+    record Endpoint(String name, String method, String path, long requests, long errors, double throughput,
+                    Map<String, Long> statuses, Latency latency, Latency serviceTime, String histogram) {
+
+        double errorPercent() {
+            return (requests == 0) ? 0 : 100.0 * errors / requests;
+        }
+    }
+
+    record Latency(double mean, long p50, long p90, long p99, long p999, long max) {
+
+        static Latency of(Histogram histogram) {
+            return new Latency(
+                Math.round(histogram.getMean() * 10) / 10.0,
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue()
+            );
+        }
+    }
+
+    static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    void write(Path file) throws IOException {
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    static LoadSummary read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadSummary.class);
+    }
+
+    /**
+     * Renders a Markdown table of the changes from the baseline to the candidate run, endpoint by endpoint.
+     * Endpoints present in one run only are shown with "-" on the other side.
+     */
+    static String compare(LoadSummary baseline, LoadSummary candidate) {
+        Map<String, Endpoint> before = byName(baseline);
+        Map<String, Endpoint> after = byName(candidate);
+        Set<String> names = new LinkedHashSet<>(before.keySet());
+        names.addAll(after.keySet());
+
+        StringBuilder table = new StringBuilder()
+            .append("Baseline: ").append(baseline.startedAt()).append(", ").append(baseline.mix())
+            .append(" mix at ").append(baseline.targetRate()).append(" req/s\n")
+            .append("Candidate: ").append(candidate.startedAt()).append(", ").append(candidate.mix())
+            .append(" mix at ").append(candidate.targetRate()).append(" req/s\n\n")
+            .append("| Endpoint | Throughput, req/s | p50, ms | p99, ms | p99.9, ms | Max, ms | Errors, % |\n")
+            .append("|---|---|---|---|---|---|---|\n");
+        for (String name : names) {
+            Endpoint from = before.get(name);
+            Endpoint to = after.get(name);
+            table.append("| ").append(name)
+                .append(" | ").append(change(from, to, Endpoint::throughput))
+                .append(" | ").append(change(from, to, endpoint -> millis(endpoint.latency().p50())))
+                .append(" | ").append(change(from, to, endpoint -> millis(endpoint.latency().p99())))
+                .append(" | ").append(change(from, to, endpoint -> millis(endpoint.latency().p999())))
+                .append(" | ").append(change(from, to, endpoint -> millis(endpoint.latency().max())))
+                .append(" | ").append(change(from, to, Endpoint::errorPercent))
+                .append(" |\n");
+        }
+        return table.toString();
+    }
+
+    private static Map<String, Endpoint> byName(LoadSummary summary) {
+        Map<String, Endpoint> endpoints = summary.endpoints().stream()
+            .collect(Collectors.toMap(Endpoint::name, endpoint -> endpoint, (a, b) -> a,
+                LinkedHashMap::new));
+        endpoints.put(summary.total().name(), summary.total());
+        return endpoints;
+    }
+
+    private static String change(Endpoint from, Endpoint to, ToDoubleFunction<Endpoint> metric) {
+        String fromText = (from == null) ? "-" : format(metric.applyAsDouble(from));
+        String toText = (to == null) ? "-" : format(metric.applyAsDouble(to));
+        String text = fromText + " -> " + toText;
+        if (from != null && to != null && metric.applyAsDouble(from) != 0) {
+            double delta = 100 * (metric.applyAsDouble(to) / metric.applyAsDouble(from) - 1);
+            text += String.format(Locale.ROOT, " (%+.1f%%)", delta);
+        }
+        return text;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String format(double value) {
+        return (value == Math.rint(value)) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.1f", value);
+    }
+}
@@ -0,0 +1,150 @@
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Weighted set of requests to replay, read from a JSON Lines file where every line describes a request of a mix:
+ * <pre>
+ * {"mix": "browse", "name": "owner", "method": "GET", "path": "/api/owners/{ownerId}", "weight": 30,
+ *  "params": {"ownerId": {"min": 1, "max": 10}}}
+ * </pre>
+ * The {@code {placeholders}} of the path and the (optional) JSON body are replaced with random values of the
+ * {@code params}: integers from the {@code min..max} range or strings from the {@code values} list.
+ *
+ * @author Vladimir Plizga
+ */
+record RequestMix(String name, List<RequestTemplate> templates, double[] cumulativeWeights) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * @param overrides params replacing the ones of the file in all the requests, e.g. to match a seeded database
+     */
+    static RequestMix read(Path file, String mixName, Map<String, Param> overrides) throws IOException {
+        List<RequestTemplate> templates = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node = MAPPER.readTree(line);
+            if (mixName.equals(node.path("mix").asText())) {
+                templates.add(RequestTemplate.of(node, overrides));
+            }
+        }
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("No requests of mix '" + mixName + "' in " + file);
+        }
+        double[] cumulativeWeights = new double[templates.size()];
+        double sum = 0;
+        for (int i = 0; i < templates.size(); i++) {
+            sum += templates.get(i).weight();
+            cumulativeWeights[i] = sum;
+        }
+        return new RequestMix(mixName, List.copyOf(templates), cumulativeWeights);
+    }
+
+    RequestTemplate pick(SplittableRandom random) {
+        double point = random.nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return templates.get(i);
+            }
+        }
+        return templates.get(templates.size() - 1);
+    }
+
+    /**
+     * Random value of a placeholder
+     */
+    record Param(int min, int max, List<String> values) {
+
+        /**
+         * Parses either a range like {@code 1-1000} or a list of values like {@code Davis|Franklin}
+         */
+        static Param parse(String text) {
+            Matcher range = Pattern.compile("(-?\\d+)-(-?\\d+)").matcher(text);
+            if (range.matches()) {
+                return new Param(Integer.parseInt(range.group(1)), Integer.parseInt(range.group(2)), null);
+            }
+            return new Param(0, 0, List.of(text.split("\\|")));
+        }
+
+        static Param of(JsonNode node) {
+            if (node.has("values")) {
+                List<String> values = new ArrayList<>();
+                node.get("values").forEach(value -> values.add(value.asText()));
+                return new Param(0, 0, List.copyOf(values));
+            }
+            return new Param(node.get("min").asInt(), node.get("max").asInt(), null);
+        }
+
+        String next(SplittableRandom random) {
+            return (values != null)
+                ? values.get(random.nextInt(values.size()))
+                : String.valueOf(random.nextInt(min, max + 1));
+        }
+    }
+
+    /**
+     * A request of the mix with placeholders yet to be filled
+     */
+    record RequestTemplate(String name, String method, String path, String body, double weight,
+                           Map<String, Param> params) {
+
+        private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+
+        static RequestTemplate of(JsonNode node, Map<String, Param> overrides) {
+            Map<String, Param> params = new LinkedHashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.path("params").fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), Param.of(field.getValue()));
+            }
+            overrides.forEach((name, param) -> params.computeIfPresent(name, (key, value) -> param));
+            String body = node.has("body") ? node.get("body").toString() : null;
+            return new RequestTemplate(node.get("name").asText(), node.path("method").asText("GET"),
+                node.get("path").asText(), body, node.path("weight").asDouble(1), Map.copyOf(params));
+        }
+
+        HttpRequest toRequest(URI baseUri, SplittableRandom random, Duration timeout) {
+            // the same placeholder gets the same value in the path and in the body
+            Map<String, String> values = new LinkedHashMap<>();
+            params.forEach((name, param) -> values.put(name, param.next(random)));
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUri + fill(path, values)))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+            if (body == null) {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            } else {
+                request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(fill(body, values)));
+            }
+            return request.build();
+        }
+
+        private static String fill(String template, Map<String, String> values) {
+            Matcher matcher = PLACEHOLDER.matcher(template);
+            StringBuilder result = new StringBuilder();
+            while (matcher.find()) {
+                String value = values.get(matcher.group(1));
+                matcher.appendReplacement(result, Matcher.quoteReplacement((value != null) ? value : matcher.group()));
+            }
+            return matcher.appendTail(result).toString();
+        }
+    }
+}
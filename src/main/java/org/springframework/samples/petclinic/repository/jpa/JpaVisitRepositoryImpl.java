@@ -78,7 +78,13 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
 
 	@Override
 	public void delete(Visit visit) throws DataAccessException {
-        this.em.remove(this.em.contains(visit) ? visit : this.em.merge(visit));
+        // removing the entity is not enough: it is still referenced (with cascading) by the visits of its pet
+        this.em.createQuery("DELETE FROM Visit visit WHERE visit.id = :id")
+            .setParameter("id", visit.getId())
+            .executeUpdate();
+        if (this.em.contains(visit)) {
+            this.em.remove(visit);
+        }
 	}
 
 }
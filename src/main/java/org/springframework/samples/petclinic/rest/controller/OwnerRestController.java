@@ -91,7 +91,7 @@ public class OwnerRestController implements OwnersApi {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         if (ownerInfoService != null) {     // the service may be disabled
-            owners.forEach(owner -> ownerInfoService.checkOwnerInfo(owner.getTelephone()));
+            ownerInfoService.checkOwnersInfo(owners.stream().map(Owner::getTelephone).toList());
         }
         return new ResponseEntity<>(ownerMapper.toOwnerDtoCollection(owners), HttpStatus.OK);
     }
@@ -31,8 +31,8 @@ import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.rest.dto.SummaryDto;
 import org.springframework.samples.petclinic.rest.dto.VisitDto;
 import org.springframework.samples.petclinic.service.ClinicService;
-import org.springframework.samples.petclinic.service.perf.memory.ai.AiConversation.Summary;
 import org.springframework.samples.petclinic.service.perf.memory.ai.DiagnosisService;
+import org.springframework.samples.petclinic.service.perf.memory.ai.Summary;
 import org.springframework.samples.petclinic.service.perf.memory.ai.SummaryMapper;
 import org.springframework.samples.petclinic.service.perf.profile.PetListPostProcessor;
 import org.springframework.samples.petclinic.service.perf.threads.DiseaseRiskAiService;
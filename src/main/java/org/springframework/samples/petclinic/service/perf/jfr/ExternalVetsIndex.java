@@ -0,0 +1,122 @@
+package org.springframework.samples.petclinic.service.perf.jfr;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.samples.petclinic.util.jfr.CacheAccessEvent;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Immutable trigram index over a snapshot of external doctors' descriptions. Every trigram made of lowercase latin
+ * letters maps to the set of documents containing it, so a substring query only verifies the documents containing
+ * all of its trigrams. Query results are memoized for the lifetime of the snapshot.
+ *
+ * @author Vladimir Plizga
+ */
+class ExternalVetsIndex {
+
+    private static final int ALPHABET_SIZE = 26;
+
+    private final List<String> documents;
+
+    /**
+     * Index: trigram code (see {@link #trigramCode}) -> ids of documents containing the trigram (null if none)
+     */
+    private final BitSet[] postings = new BitSet[ALPHABET_SIZE * ALPHABET_SIZE * ALPHABET_SIZE];
+
+    /**
+     * Documents containing the mandatory keyword
+     */
+    private final BitSet keywordDocuments;
+
+    private final String keyword;
+
+    /**
+     * Key: specialty name, value: descriptions of related doctors joined by line breaks
+     */
+    private final Map<String, String> memo = new ConcurrentHashMap<>();
+
+    ExternalVetsIndex(List<String> documents, String keyword) {
+        this.documents = List.copyOf(documents);
+        this.keyword = keyword;
+        for (int docId = 0; docId < this.documents.size(); docId++) {
+            String document = this.documents.get(docId);
+            for (int i = 0; i + 2 < document.length(); i++) {
+                int code = trigramCode(document, i);
+                if (code >= 0) {
+                    BitSet docs = postings[code];
+                    if (docs == null) {
+                        docs = postings[code] = new BitSet(this.documents.size());
+                    }
+                    docs.set(docId);
+                }
+            }
+        }
+        this.keywordDocuments = findCandidates(keyword, allDocuments());
+    }
+
+    /**
+     * @return descriptions of the documents containing both the keyword and the given text, joined by line breaks
+     */
+    String findRelated(String text) {
+        String related = memo.get(text);
+        CacheAccessEvent.record("external-vets", related != null);
+        return (related != null) ? related : memo.computeIfAbsent(text, this::doFindRelated);
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    private String doFindRelated(String text) {
+        return findCandidates(text, keywordDocuments).stream()
+            .mapToObj(documents::get)
+            .filter(document -> document.contains(keyword) && document.contains(text))
+            .collect(joining("\n"));
+    }
+
+    /**
+     * @return a subset of given documents that may contain the text (a superset of ones actually containing it)
+     */
+    private BitSet findCandidates(String text, BitSet scope) {
+        BitSet candidates = (BitSet) scope.clone();
+        for (int i = 0; i + 2 < text.length() && !candidates.isEmpty(); i++) {
+            int code = trigramCode(text, i);
+            if (code < 0) {
+                continue;       // not indexed, the candidates get verified anyway
+            }
+            BitSet docs = postings[code];
+            if (docs == null) {
+                candidates.clear();
+            }
+            else {
+                candidates.and(docs);
+            }
+        }
+        return candidates;
+    }
+
+    private BitSet allDocuments() {
+        BitSet all = new BitSet(documents.size());
+        all.set(0, documents.size());
+        return all;
+    }
+
+    /**
+     * @return the code of the trigram starting at given position or {@code -1} if it's not indexable
+     */
+    private static int trigramCode(String text, int from) {
+        int code = 0;
+        for (int i = from; i < from + 3; i++) {
+            int letter = text.charAt(i) - 'a';
+            if (letter < 0 || letter >= ALPHABET_SIZE) {
+                return -1;
+            }
+            code = code * ALPHABET_SIZE + letter;
+        }
+        return code;
+    }
+}
@@ -0,0 +1,102 @@
+package org.springframework.samples.petclinic.service.perf.jfr;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+
+/**
+ * Fixed-capacity ring of raw metric samples. The samples are stored off-heap in a single preallocated direct buffer
+ * split into equally sized slots; once all the slots are taken, every new sample overwrites the oldest one. Only
+ * the timestamps and lengths of the samples are kept on the heap (as primitive arrays).
+ *
+ * @author Vladimir Plizga
+ */
+class MetricRingBuffer {
+
+    private final int capacity;
+    private final int slotSize;
+
+    /**
+     * Off-heap storage of all the slots
+     */
+    private final ByteBuffer storage;
+    private final long[] timestamps;
+    private final int[] lengths;
+
+    /**
+     * Total number of samples ever appended (not limited by capacity)
+     */
+    private long appendedCount = 0;
+
+    MetricRingBuffer(int capacity, int slotSize) {
+        Assert.isTrue(capacity > 0 && slotSize > 0, "Capacity and slot size must be positive");
+        Assert.isTrue((long) capacity * slotSize <= Integer.MAX_VALUE, "Ring buffer must not exceed 2 GB");
+        this.capacity = capacity;
+        this.slotSize = slotSize;
+        this.storage = ByteBuffer.allocateDirect(capacity * slotSize);
+        this.timestamps = new long[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    /**
+     * Lets the writer fill the next slot and records it as a sample taken at the given moment
+     *
+     * @param timestamp epoch milliseconds of the sample
+     * @param writer    the filler of the slot; the slot's position after the call is the length of the sample
+     */
+    synchronized void append(long timestamp, Consumer<ByteBuffer> writer) {
+        int slot = (int) (appendedCount % capacity);
+        ByteBuffer slotBuffer = storage.slice(slot * slotSize, slotSize);
+        writer.accept(slotBuffer);
+        lengths[slot] = slotBuffer.position();
+        timestamps[slot] = timestamp;
+        appendedCount++;
+    }
+
+    /**
+     * @return descriptors of the samples taken within the given window (both ends inclusive), oldest first
+     */
+    synchronized List<RawMetric> read(long fromTimestamp, long toTimestamp) {
+        List<RawMetric> result = new ArrayList<>();
+        long oldest = Math.max(0, appendedCount - capacity);
+        for (long seq = oldest; seq < appendedCount; seq++) {
+            int slot = (int) (seq % capacity);
+            long timestamp = timestamps[slot];
+            if (timestamp >= fromTimestamp && timestamp <= toTimestamp) {
+                result.add(new RawMetric(seq, Instant.ofEpochMilli(timestamp), lengths[slot]));
+            }
+        }
+        return result;
+    }
+
+    synchronized int size() {
+        return (int) Math.min(appendedCount, capacity);
+    }
+
+    /**
+     * @return {@code true} if at least one sample has been overwritten
+     */
+    synchronized boolean isWrapped() {
+        return appendedCount > capacity;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long storageBytes() {
+        return storage.capacity();
+    }
+
+    /**
+     * @param sequence ordinal number of the sample since the application start
+     * @param timestamp the moment the sample was taken
+     * @param length size of the sample in bytes
+     */
+    record RawMetric(long sequence, Instant timestamp, int length) {
+    }
+}
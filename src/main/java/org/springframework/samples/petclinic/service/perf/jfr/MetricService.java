@@ -4,24 +4,26 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.samples.petclinic.service.perf.FakeImpl;
+import org.springframework.samples.petclinic.service.perf.jfr.MetricRingBuffer.RawMetric;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryUsage;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
 
 /**
- * Sample metrics provider designed to be used with {@link SpecialtyService}
+ * Sample metrics provider designed to be used with {@link SpecialtyService}. <p/>
+ * Raw metrics are kept in an off-heap {@linkplain MetricRingBuffer ring buffer} of {@code metrics-buffer-capacity}
+ * samples, so the newest samples replace the oldest ones and collection doesn't touch the heap.
  *
  * @author Vladimir Plizga
  */
@@ -31,16 +33,18 @@ import java.util.List;
 public class MetricService {
     private static final Logger log = LoggerFactory.getLogger(MetricService.class);
 
-    private static final int BUFFERING_THRESHOLD = Integer.getInteger("threshold", 89);
+    private static final int METRIC_SAMPLE_SIZE = 1 << 18;      // 256 KB
 
-    private final List<ByteBuffer> rawMetrics = new ArrayList<>();
-    private boolean bufferFull = false;
+    private final MetricRingBuffer rawMetrics;
     private boolean metricCollectionAllowed = false;
 
     private final MeterRegistry registry;
 
-    public MetricService(MeterRegistry registry) {
+    public MetricService(MeterRegistry registry,
+                         @Value("${metrics-buffer-capacity:64}") int bufferCapacity) {
         this.registry = registry;
+        this.rawMetrics = new MetricRingBuffer(bufferCapacity, METRIC_SAMPLE_SIZE);
+        log.debug("Allocated {} bytes off-heap for {} raw metrics", rawMetrics.storageBytes(), bufferCapacity);
     }
 
     @Scheduled(fixedDelay = 500, timeUnit = MILLISECONDS)
@@ -48,30 +52,24 @@ public class MetricService {
         if (!metricCollectionAllowed) {
             return;
         }
-        MemoryUsage memoryUsage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
-        long memoryUsed = memoryUsage.getUsed();
-        long memoryMax = memoryUsage.getMax();
-        double usedPercent = (double) memoryUsed / (double) memoryMax * 100;
-        if (usedPercent <= BUFFERING_THRESHOLD) {
-            var metricBuffer = gatherMetricData();
-            rawMetrics.add(metricBuffer);
-            if (bufferFull) {
-                log.info("Continuing to collect metrics from count: {}", rawMetrics.size());
-            }
-            bufferFull = false;
-        }
-        else {
-            if (!bufferFull) {
-                log.info("Metrics buffer is complete with %d entries (memory level: %.2f%%)"
-                    .formatted(rawMetrics.size(), usedPercent));
-            }
-            bufferFull = true;
+        boolean wasWrapped = rawMetrics.isWrapped();
+        rawMetrics.append(System.currentTimeMillis(), MetricService::gatherMetricData);
+        if (!wasWrapped && rawMetrics.isWrapped()) {
+            log.info("Metrics buffer is complete with {} entries; the oldest ones are being overwritten since now",
+                rawMetrics.capacity());
         }
     }
 
     @FakeImpl("Produces artificial data corresponding to a real metric buffer")
-    private static ByteBuffer gatherMetricData() {
-        return ByteBuffer.allocate(1 << 18);  // 250 KB
+    private static void gatherMetricData(ByteBuffer slot) {
+        slot.position(slot.limit());        // pretend the whole slot has been filled
+    }
+
+    /**
+     * @return descriptors of raw metrics collected within the given time window (both ends inclusive)
+     */
+    public List<RawMetric> findRawMetrics(Instant from, Instant to) {
+        return rawMetrics.read(from.toEpochMilli(), to.toEpochMilli());
     }
 
     /**
@@ -86,7 +84,7 @@ public class MetricService {
             .register(registry);
 
         // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.metrics.full
-        Gauge.builder("petclinic.metrics.full", () -> bufferFull ? 1 : 0)
+        Gauge.builder("petclinic.metrics.full", () -> rawMetrics.isWrapped() ? 1 : 0)
             .register(registry);
     }
 }
@@ -0,0 +1,37 @@
+package org.springframework.samples.petclinic.service.perf.jfr;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.samples.petclinic.service.perf.jfr.MetricRingBuffer.RawMetric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint listing raw metrics collected by {@link MetricService} within a time window, e.g.
+ * {@code http://localhost:9966/petclinic/actuator/rawmetrics?from=2025-01-01T10:00:00Z&to=2025-01-01T10:05:00Z}.
+ * Both bounds are optional and default to the whole buffer.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@Endpoint(id = "rawmetrics")
+@ConditionalOnProperty("enable-specialty")
+public class RawMetricsEndpoint {
+
+    private final MetricService metricService;
+
+    public RawMetricsEndpoint(MetricService metricService) {
+        this.metricService = metricService;
+    }
+
+    @ReadOperation
+    public List<RawMetric> rawMetrics(@Nullable Instant from, @Nullable Instant to) {
+        return metricService.findRawMetrics(
+            (from != null) ? from : Instant.EPOCH,
+            (to != null) ? to : Instant.now());
+    }
+}
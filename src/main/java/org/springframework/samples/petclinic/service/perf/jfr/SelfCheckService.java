@@ -1,9 +1,15 @@
 package org.springframework.samples.petclinic.service.perf.jfr;
 
 import static java.io.File.pathSeparator;
-import static java.util.Arrays.asList;
-import static java.util.Collections.emptySet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.function.Function.identity;
 import static java.util.function.Predicate.not;
+import static java.util.stream.Collectors.toMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,23 +18,37 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.CodeSigner;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Stream;
 import java.util.zip.ZipFile;
 
 /**
+ * Verifies signatures of all the JARs on the classpath and dumps their footprint (content digests) for further
+ * checking. <p/>
+ * The JARs are verified in parallel, every entry is streamed through a digest without being kept in memory. The
+ * dump is written incrementally, one record per JAR, and is reused on the next start as a cache: a JAR with the
+ * same path, size and modification time as in the previous dump is not verified again.
  *
  * @author Vladimir Plizga
  */
@@ -37,90 +57,194 @@ import java.util.zip.ZipFile;
 public class SelfCheckService {
     private static final Logger log = LoggerFactory.getLogger(SelfCheckService.class);
 
+    private static final Path DUMP_PATH = Path.of(System.getProperty("user.dir"), "dumps", "self-check-dump.bin");
+
+    /**
+     * Dumps larger than that are not considered as caches (e.g. a raw content dump left by older versions)
+     */
+    private static final long MAX_CACHED_DUMP_SIZE = 16 * 1024 * 1024;
+
     @EventListener(ApplicationReadyEvent.class)
     public void performSelfCheck() {
-        // first examine all the JAR signatures with the classpath
+        // first examine all the JAR signatures with the classpath, reusing the results of the previous check
         long startTime = System.currentTimeMillis();
-        List<CheckResult> checkResults = Arrays.stream(
-                System.getProperty("java.class.path").split(pathSeparator))
-            .map(Path::of)
-            .filter(not(Files::isDirectory))
-            .map(this::checkForSignature)
-            .toList();
+        Map<Path, CheckResult> previousResults = loadPreviousResults();
+        Path tempDumpPath = DUMP_PATH.resolveSibling(DUMP_PATH.getFileName() + ".tmp");
+        List<CheckResult> checkResults;
+        try {
+            Files.createDirectories(DUMP_PATH.getParent());
+            try (FileChannel dumpChannel = FileChannel.open(tempDumpPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                checkResults = Arrays.stream(System.getProperty("java.class.path").split(pathSeparator))
+                    .parallel()
+                    .map(Path::of)
+                    .filter(not(Files::isDirectory))
+                    .map(jarPath -> {
+                        CheckResult checkResult = checkCachedOrVerify(jarPath, previousResults.get(jarPath));
+                        appendToDump(checkResult, dumpChannel);     // then dump the footprint
+                        return checkResult;
+                    })
+                    .toList();
+            }
+            Files.move(tempDumpPath, DUMP_PATH, REPLACE_EXISTING, ATOMIC_MOVE);
+        }
+        catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Failed to store self check dump", e);
+        }
+
         boolean allRight = checkResults.stream().allMatch(CheckResult::isOk);
+        long cachedCount = checkResults.stream().filter(result -> result == previousResults.get(result.path())).count();
         long tookTime = System.currentTimeMillis() - startTime;
-        log.info("Self-check result: {} (took: {} ms)", (allRight ? "OK" : "FAIL"), tookTime);
-
-        // then dump the overall footprint for further checking
-        Path dumpPath = Path.of(System.getProperty("user.dir"), "dumps", "self-check-dump.bin");
-        try (OutputStream outputStream = Files.newOutputStream(dumpPath)) {
-            int totalSize = 0;
-            for (CheckResult checkResult : checkResults) {
-                ByteArrayOutputStream accumulator = checkResult.accumulator();
-                byte[] byteArray = accumulator.toByteArray();
-                totalSize += byteArray.length;
-                outputStream.write(byteArray);
+        log.info("Self-check result: {} (took: {} ms, JARs: {}, unchanged since previous check: {})",
+            (allRight ? "OK" : "FAIL"), tookTime, checkResults.size(), cachedCount);
+        log.trace("Self-check saved {} bytes to {}", DUMP_PATH.toFile().length(), DUMP_PATH);
+    }
+
+    private CheckResult checkCachedOrVerify(Path jarPath, CheckResult previousResult) {
+        try {
+            long size = Files.size(jarPath);
+            long lastModified = Files.getLastModifiedTime(jarPath).toMillis();
+            if (previousResult != null && previousResult.isOk()
+                && previousResult.size() == size && previousResult.lastModified() == lastModified) {
+                return previousResult;
+            }
+            return checkForSignature(jarPath, size, lastModified);
+        }
+        catch (IOException | SecurityException e) {
+            // a failed result is never reused, so the JAR is verified again on the next start
+            log.error("Failed to verify JAR file {}", jarPath, e);
+            return CheckResult.fail(jarPath, e.toString());
+        }
+    }
+
+    private CheckResult checkForSignature(Path jarPath, long size, long lastModified) throws IOException {
+        try (JarFile jarFile = new JarFile(jarPath.toFile(), true, ZipFile.OPEN_READ)) {
+            Set<Certificate> certificates = new HashSet<>();
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[8192];
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                // signers become known only after the entry has been read completely
+                readEntry(jarFile, entry, digest, buffer);
+                CodeSigner[] codeSigners = entry.getCodeSigners();
+                if (codeSigners != null) {
+                    for (CodeSigner cs : codeSigners) {
+                        certificates.addAll(cs.getSignerCertPath().getCertificates());
+                    }
+                }
+                Certificate[] entryCerts = entry.getCertificates();
+                if (entryCerts != null) {
+                    certificates.addAll(Arrays.asList(entryCerts));
+                }
+            }
+
+            String digestHex = HexFormat.of().formatHex(digest.digest());
+            return CheckResult.ok(jarPath, size, lastModified, digestHex, certificates.size());
+        }
+    }
+
+    private void readEntry(JarFile jf, JarEntry je, MessageDigest digest, byte[] buffer) throws IOException {
+        digest.update(je.getName().getBytes(UTF_8));
+        try (InputStream is = jf.getInputStream(je)) {
+            int readCount;
+            while ((readCount = is.read(buffer, 0, buffer.length)) != -1) {
+                digest.update(buffer, 0, readCount);
             }
-            log.trace("Self-check saved {} bytes to {}", totalSize, dumpPath);
         }
         catch (IOException e) {
-            throw new RuntimeException("Failed to store self check dump", e);
+            throw new IOException("Failed to read entry '%s'".formatted(je), e);
         }
     }
 
-    private CheckResult checkForSignature(Path jarPath) {
+    private static void appendToDump(CheckResult checkResult, FileChannel dumpChannel) {
+        ByteBuffer record = ByteBuffer.wrap((checkResult.toRecord() + "\n").getBytes(UTF_8));
         try {
-            try (JarFile jarFile = new JarFile(jarPath.toFile(), true, ZipFile.OPEN_READ)) {
-                Set<Certificate> certificates = new HashSet<>();
-                ByteArrayOutputStream accumulator = new ByteArrayOutputStream();
-                jarFile.stream()
-                    .filter(jarEntry -> !jarEntry.isDirectory())
-                    .forEach(entry -> {
-                        readEntry(jarFile, entry, accumulator);
-                        CodeSigner[] codeSigners = entry.getCodeSigners();
-                        if (codeSigners != null) {
-                            for (CodeSigner cs : entry.getCodeSigners()) {
-                                certificates.addAll(cs.getSignerCertPath().getCertificates());
-                            }
-                        }
-                        Certificate[] entryCerts = entry.getCertificates();
-                        if (entryCerts != null) {
-                            certificates.addAll(asList(entryCerts));
-                        }
-                    });
-
-                return CheckResult.ok(jarPath, certificates, accumulator);
+            // a single write may be partial, so the whole record is written under the lock not to interleave with others
+            synchronized (dumpChannel) {
+                while (record.hasRemaining()) {
+                    dumpChannel.write(record);
+                }
             }
-        } catch (IOException e) {
-            log.error("Failed to read JAR file {}", jarPath, e);
-            return CheckResult.fail(jarPath, e.getMessage());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private void readEntry(JarFile jf, JarEntry je, ByteArrayOutputStream accumulator) {
-        try (InputStream is = jf.getInputStream(je)) {
-            byte[] buffer = new byte[8192];
-            while (is.read(buffer, 0, buffer.length) != -1) {
-                accumulator.write(buffer);
+    private static Map<Path, CheckResult> loadPreviousResults() {
+        try {
+            if (!Files.isRegularFile(DUMP_PATH) || Files.size(DUMP_PATH) > MAX_CACHED_DUMP_SIZE) {
+                return Collections.emptyMap();
+            }
+            try (Stream<String> records = Files.lines(DUMP_PATH, UTF_8)) {
+                return records.map(CheckResult::fromRecord)
+                    .filter(Objects::nonNull)
+                    .collect(toMap(CheckResult::path, identity(), (first, second) -> first));
             }
-        } catch (IOException e) {
-            log.error("Failed to read entry '{}' from file '{}'", jf, je, e);
+        }
+        catch (IOException | UncheckedIOException e) {
+            log.warn("Previous self-check dump is unreadable and will be overwritten: {}", e.toString());
+            return Collections.emptyMap();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
+    /**
+     * @param digest SHA-256 of the names and contents of all JAR entries (hex)
+     */
     private record CheckResult(boolean isOk,
                                Path path,
-                               Set<Certificate> certs,
-                               ByteArrayOutputStream accumulator,
+                               long size,
+                               long lastModified,
+                               String digest,
+                               int certsCount,
                                String error)
         implements Comparable<CheckResult> {
 
-        public static CheckResult ok(Path path, Set<Certificate> certs, ByteArrayOutputStream accumulator) {
-            return new CheckResult(true, path, certs, accumulator, null);
+        private static final String SEPARATOR = "\t";
+
+        public static CheckResult ok(Path path, long size, long lastModified, String digest, int certsCount) {
+            return new CheckResult(true, path, size, lastModified, digest, certsCount, null);
         }
 
         public static CheckResult fail(Path path, String error) {
-            return new CheckResult(false, path, emptySet(), new ByteArrayOutputStream(), error);
+            return new CheckResult(false, path, -1, -1, "", 0, error);
+        }
+
+        /**
+         * @return single-line representation of the result as stored in the dump
+         */
+        String toRecord() {
+            return String.join(SEPARATOR, (isOk ? "OK" : "FAIL"), String.valueOf(size), String.valueOf(lastModified),
+                digest, String.valueOf(certsCount), path.toString());
+        }
+
+        /**
+         * @return the result restored from its dump record or {@code null} if the record is malformed
+         */
+        static CheckResult fromRecord(String record) {
+            String[] fields = record.split(SEPARATOR, 6);
+            if (fields.length != 6) {
+                return null;
+            }
+            try {
+                return new CheckResult("OK".equals(fields[0]), Path.of(fields[5]), Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]), fields[3], Integer.parseInt(fields[4]), null);
+            }
+            catch (RuntimeException e) {
+                return null;
+            }
         }
 
         @Override
@@ -2,7 +2,6 @@ package org.springframework.samples.petclinic.service.perf.jfr;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -13,47 +12,73 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.service.perf.FakeImpl;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import static java.util.stream.Collectors.joining;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.toMap;
 
 /**
+ * Finds veterinarians in a (fake) external database. The database is fetched once per refresh cycle
+ * ({@code external-vets-refresh-minutes}, 10 by default) and indexed, so that specialties are matched against the
+ * {@linkplain ExternalVetsIndex index} rather than the raw texts.
  *
  * @author Vladimir Plizga
  */
 @Service
+@EnableScheduling           // to enable background refresh of external vets
 @ConditionalOnProperty("enable-specialty")
 public class SpecialtyService {
     private static final Logger log = LoggerFactory.getLogger(SpecialtyService.class);
 
+    private static final String VET_KEYWORD = "veterinarian";
+
+    private volatile ExternalVetsIndex externalVetsIndex;
+
     /**
      * Finds veterinarians in a (fake) external database and returns their descriptions in conjunction with
      * corresponding specialities
      */
     public Map<Specialty, String> findExternalVets(Collection<Specialty> specialties) {
-        Map<Specialty, String> result = new HashMap<>();
-
-        for (Specialty specialty : specialties) {
-            String relatedInfo;
-            try {
-                List<String> relatedSpecs = collectAvailableDoctors();
-                relatedInfo = extractRelatedInfo(relatedSpecs, specialty);
-            }
-            catch (Throwable e) {
-                log.error("Failed to collect external vets", e);
-                throw e;
-            }
-
-            if (!relatedInfo.isBlank()) {
-                result.put(specialty, relatedInfo);
-            }
-        }
+        ExternalVetsIndex index = getIndex();
+        Map<Specialty, String> result = specialties.parallelStream()
+            .map(specialty -> Map.entry(specialty, index.findRelated(specialty.getName())))
+            .filter(entry -> !entry.getValue().isBlank())
+            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
 
         log.info("Found {} related vets for {} specialties", result.size(), specialties.size());
 
         return result;
     }
 
+    @Scheduled(fixedDelayString = "${external-vets-refresh-minutes:10}", timeUnit = MINUTES)
+    public void refreshExternalVets() {
+        try {
+            long startTime = System.currentTimeMillis();
+            ExternalVetsIndex index = new ExternalVetsIndex(collectAvailableDoctors(), VET_KEYWORD);
+            externalVetsIndex = index;
+            log.debug("Indexed {} external vets (took: {} ms)", index.size(), System.currentTimeMillis() - startTime);
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to collect external vets", e);
+            throw e;
+        }
+    }
+
+    private ExternalVetsIndex getIndex() {
+        ExternalVetsIndex index = externalVetsIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (externalVetsIndex == null) {
+                    refreshExternalVets();
+                }
+                index = externalVetsIndex;
+            }
+        }
+        return index;
+    }
+
     @FakeImpl("Emulates collecting of publicly available doctors")
     private List<String> collectAvailableDoctors() {
         List<String> result = new ArrayList<>();
@@ -64,11 +89,4 @@ public class SpecialtyService {
         return result;
     }
 
-    @FakeImpl("Simulates conscious selection of related doctors")
-    private String extractRelatedInfo(List<String> relatedDoctors, Specialty specialty) {
-        return relatedDoctors.stream()
-            .filter(spec -> spec.contains("veterinarian") && spec.contains(specialty.getName()))
-            .collect(joining("\n"));
-    }
-
 }
@@ -0,0 +1,291 @@
+package org.springframework.samples.petclinic.service.perf.memory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.util.Assert;
+
+/**
+ * Compact read-only cache of pets laid out column by column. <p/>
+ * Every pet attribute is kept in its own primitive array indexed by the pet's position (pets are sorted by id, so
+ * lookups are binary searches over {@link #ids}). Dates are stored as epoch days, repeated strings (names, types,
+ * visit descriptions) are dictionary-encoded, and visits of all pets are flattened into shared arrays addressed by
+ * CSR-style {@link #visitOffsets}: visits of the pet at position {@code i} occupy the range
+ * {@code [visitOffsets[i], visitOffsets[i + 1])}.
+ *
+ * @author Vladimir Plizga
+ */
+class PetColumnarCache {
+
+    static final PetColumnarCache EMPTY = new Builder().build();
+
+    /**
+     * Epoch day marking an absent date
+     */
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    /**
+     * Owner id marking an absent owner
+     */
+    private static final int NO_OWNER = -1;
+
+    private final int[] ids;
+    private final int[] nameCodes;
+    private final int[] birthDays;
+    private final int[] typeCodes;
+    private final int[] ownerIds;
+
+    private final int[] visitOffsets;
+    private final int[] visitDays;
+    private final int[] visitDescriptionCodes;
+
+    private final String[] names;
+    private final String[] types;
+    private final String[] visitDescriptions;
+
+    private PetColumnarCache(int[] ids, int[] nameCodes, int[] birthDays, int[] typeCodes, int[] ownerIds,
+                             int[] visitOffsets, int[] visitDays, int[] visitDescriptionCodes,
+                             String[] names, String[] types, String[] visitDescriptions) {
+        this.ids = ids;
+        this.nameCodes = nameCodes;
+        this.birthDays = birthDays;
+        this.typeCodes = typeCodes;
+        this.ownerIds = ownerIds;
+        this.visitOffsets = visitOffsets;
+        this.visitDays = visitDays;
+        this.visitDescriptionCodes = visitDescriptionCodes;
+        this.names = names;
+        this.types = types;
+        this.visitDescriptions = visitDescriptions;
+    }
+
+    static PetColumnarCache of(Collection<Pet> pets) {
+        Builder builder = new Builder();
+        for (Pet pet : pets) {
+            String type = (pet.getType() != null) ? pet.getType().getName() : null;
+            Integer ownerId = (pet.getOwner() != null) ? pet.getOwner().getId() : null;
+            builder.addPet(pet.getId(), pet.getName(), pet.getBirthDate(), type, ownerId);
+            for (Visit visit : pet.getVisits()) {
+                builder.addVisit(visit.getDate(), visit.getDescription());
+            }
+        }
+        return builder.build();
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int visitsCount() {
+        return visitDays.length;
+    }
+
+    Optional<CachedPet> find(int petId) {
+        int position = Arrays.binarySearch(ids, petId);
+        return (position < 0) ? Optional.empty() : Optional.of(materialize(position));
+    }
+
+    /**
+     * @return ids of all the pets of the given type in ascending order
+     */
+    IntStream findIdsByType(String type) {
+        int typeCode = Arrays.asList(types).indexOf(type);
+        if (typeCode < 0) {
+            return IntStream.empty();
+        }
+        return IntStream.range(0, ids.length)
+            .filter(position -> typeCodes[position] == typeCode)
+            .map(position -> ids[position]);
+    }
+
+    /**
+     * @return the number of pets born within the given range of dates (both ends inclusive)
+     */
+    int countBornBetween(LocalDate from, LocalDate to) {
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        int count = 0;
+        for (int birthDay : birthDays) {
+            if (birthDay != NO_DATE && birthDay >= fromDay && birthDay <= toDay) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Approximate number of heap bytes retained by the cache, assuming compressed oops and compact strings
+     */
+    long footprintBytes() {
+        long bytes = 16L + 11 * 4;       // the cache object itself
+        for (int[] column : List.of(ids, nameCodes, birthDays, typeCodes, ownerIds,
+            visitOffsets, visitDays, visitDescriptionCodes)) {
+            bytes += arrayBytes(column.length, Integer.BYTES);
+        }
+        for (String[] dictionary : List.of(names, types, visitDescriptions)) {
+            bytes += arrayBytes(dictionary.length, 4);
+            for (String value : dictionary) {
+                // String object + its Latin-1 byte array
+                bytes += (value == null) ? 0 : 24 + arrayBytes(value.length(), Byte.BYTES);
+            }
+        }
+        return bytes;
+    }
+
+    private static long arrayBytes(int length, int elementSize) {
+        long bytes = 16L + (long) length * elementSize;
+        return (bytes + 7) & ~7L;     // 8-byte alignment
+    }
+
+    private CachedPet materialize(int position) {
+        List<CachedVisit> visits = new ArrayList<>(visitOffsets[position + 1] - visitOffsets[position]);
+        for (int v = visitOffsets[position]; v < visitOffsets[position + 1]; v++) {
+            visits.add(new CachedVisit(toDate(visitDays[v]), visitDescriptions[visitDescriptionCodes[v]]));
+        }
+        return new CachedPet(
+            ids[position],
+            names[nameCodes[position]],
+            toDate(birthDays[position]),
+            types[typeCodes[position]],
+            (ownerIds[position] == NO_OWNER) ? null : ownerIds[position],
+            List.copyOf(visits)
+        );
+    }
+
+    private static LocalDate toDate(int epochDay) {
+        return (epochDay == NO_DATE) ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        return (date == null) ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    record CachedPet(int id, String name, LocalDate birthDate, String type, Integer ownerId,
+                     List<CachedVisit> visits) {
+    }
+
+    record CachedVisit(LocalDate date, String description) {
+    }
+
+    /**
+     * Accumulates the columns pet by pet; each {@link #addVisit visit} refers to the last added pet.
+     * Pets may come in any order of ids but each id must be added only once.
+     */
+    static class Builder {
+        private int petsCount;
+        private int[] ids = new int[16];
+        private int[] nameCodes = new int[16];
+        private int[] birthDays = new int[16];
+        private int[] typeCodes = new int[16];
+        private int[] ownerIds = new int[16];
+        private int[] visitOffsets = new int[17];
+
+        private int visitsCount;
+        private int[] visitDays = new int[16];
+        private int[] visitDescriptionCodes = new int[16];
+
+        private final Dictionary names = new Dictionary();
+        private final Dictionary types = new Dictionary();
+        private final Dictionary visitDescriptions = new Dictionary();
+
+        Builder addPet(int id, String name, LocalDate birthDate, String type, Integer ownerId) {
+            if (petsCount == ids.length) {
+                int capacity = petsCount * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                nameCodes = Arrays.copyOf(nameCodes, capacity);
+                birthDays = Arrays.copyOf(birthDays, capacity);
+                typeCodes = Arrays.copyOf(typeCodes, capacity);
+                ownerIds = Arrays.copyOf(ownerIds, capacity);
+                visitOffsets = Arrays.copyOf(visitOffsets, capacity + 1);
+            }
+            ids[petsCount] = id;
+            nameCodes[petsCount] = names.encode(name);
+            birthDays[petsCount] = toEpochDay(birthDate);
+            typeCodes[petsCount] = types.encode(type);
+            ownerIds[petsCount] = (ownerId == null) ? NO_OWNER : ownerId;
+            petsCount++;
+            visitOffsets[petsCount] = visitsCount;
+            return this;
+        }
+
+        Builder addVisit(LocalDate date, String description) {
+            Assert.state(petsCount > 0, "A visit must follow its pet");
+            if (visitsCount == visitDays.length) {
+                int capacity = visitsCount * 2;
+                visitDays = Arrays.copyOf(visitDays, capacity);
+                visitDescriptionCodes = Arrays.copyOf(visitDescriptionCodes, capacity);
+            }
+            visitDays[visitsCount] = toEpochDay(date);
+            visitDescriptionCodes[visitsCount] = visitDescriptions.encode(description);
+            visitsCount++;
+            visitOffsets[petsCount] = visitsCount;
+            return this;
+        }
+
+        PetColumnarCache build() {
+            // sort the positions by pet id without boxing: the high half is the id, the low half is the position
+            long[] order = new long[petsCount];
+            for (int i = 0; i < petsCount; i++) {
+                order[i] = ((long) ids[i] << 32) | i;
+            }
+            Arrays.sort(order);
+
+            int[] sortedIds = new int[petsCount];
+            int[] sortedNameCodes = new int[petsCount];
+            int[] sortedBirthDays = new int[petsCount];
+            int[] sortedTypeCodes = new int[petsCount];
+            int[] sortedOwnerIds = new int[petsCount];
+            int[] sortedVisitOffsets = new int[petsCount + 1];
+            int[] sortedVisitDays = new int[visitsCount];
+            int[] sortedVisitDescriptionCodes = new int[visitsCount];
+
+            int visitPosition = 0;
+            for (int i = 0; i < petsCount; i++) {
+                int source = (int) order[i];
+                Assert.isTrue(i == 0 || sortedIds[i - 1] != ids[source], () -> "Duplicate pet id: " + ids[source]);
+                sortedIds[i] = ids[source];
+                sortedNameCodes[i] = nameCodes[source];
+                sortedBirthDays[i] = birthDays[source];
+                sortedTypeCodes[i] = typeCodes[source];
+                sortedOwnerIds[i] = ownerIds[source];
+                int visitsOfPet = visitOffsets[source + 1] - visitOffsets[source];
+                System.arraycopy(visitDays, visitOffsets[source], sortedVisitDays, visitPosition, visitsOfPet);
+                System.arraycopy(visitDescriptionCodes, visitOffsets[source],
+                    sortedVisitDescriptionCodes, visitPosition, visitsOfPet);
+                visitPosition += visitsOfPet;
+                sortedVisitOffsets[i + 1] = visitPosition;
+            }
+
+            return new PetColumnarCache(sortedIds, sortedNameCodes, sortedBirthDays, sortedTypeCodes, sortedOwnerIds,
+                sortedVisitOffsets, sortedVisitDays, sortedVisitDescriptionCodes,
+                names.toArray(), types.toArray(), visitDescriptions.toArray());
+        }
+    }
+
+    /**
+     * Assigns consecutive codes to distinct strings ({@code null} included)
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        String[] toArray() {
+            return values.toArray(String[]::new);
+        }
+    }
+}
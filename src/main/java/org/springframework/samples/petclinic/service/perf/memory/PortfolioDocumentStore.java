@@ -0,0 +1,146 @@
+package org.springframework.samples.petclinic.service.perf.memory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.samples.petclinic.service.perf.FakeImpl;
+import org.springframework.stereotype.Component;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * File-backed storage of vets' portfolio documents located in {@code portfolio-data-dir} directory (one file per
+ * vet). Documents are split into fixed-size {@linkplain DocumentPage pages} that are memory-mapped only when opened.
+ * The least recently opened pages are released once the total size of mapped pages exceeds
+ * {@code portfolio-max-mapped-mb} megabytes (the mapping itself is dropped by GC then).
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@ConditionalOnProperty("enable-portfolio")
+public class PortfolioDocumentStore {
+    private static final Logger log = LoggerFactory.getLogger(PortfolioDocumentStore.class);
+
+    private static final int DOCUMENT_SIZE = 1 << 23;       // approx. 8MB
+    private static final int PAGE_SIZE = 1 << 20;           // 1MB
+
+    private final Path dataDir;
+    private final long maxMappedBytes;
+
+    /**
+     * Currently mapped pages in access order (the least recently opened first)
+     */
+    private final LinkedHashMap<DocumentPage, MappedByteBuffer> mappedPages = new LinkedHashMap<>(16, 0.75f, true);
+    private long mappedBytes = 0;
+
+    public PortfolioDocumentStore(@Value("${portfolio-data-dir:${java.io.tmpdir}/petclinic-portfolios}") Path dataDir,
+                                  @Value("${portfolio-max-mapped-mb:64}") int maxMappedMegabytes) {
+        this.dataDir = dataDir;
+        this.maxMappedBytes = (long) maxMappedMegabytes << 20;
+        log.debug("Portfolio documents are stored in '{}' (max mapped: {} MB)", dataDir, maxMappedMegabytes);
+    }
+
+    /**
+     * @return handles of all the pages of the vet's portfolio document; no page gets mapped by this call
+     */
+    public List<DocumentPage> findPages(int vetId) {
+        try {
+            Path documentPath = provideDocument(vetId);
+            long documentSize = Files.size(documentPath);
+            List<DocumentPage> pages = new ArrayList<>();
+            for (long offset = 0; offset < documentSize; offset += PAGE_SIZE) {
+                pages.add(new DocumentPage(documentPath, offset, (int) Math.min(PAGE_SIZE, documentSize - offset)));
+            }
+            return pages;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to find portfolio document of vet " + vetId, e);
+        }
+    }
+
+    /**
+     * Maps the page into memory (unless already mapped) and returns its read-only view
+     */
+    public synchronized ByteBuffer open(DocumentPage page) {
+        MappedByteBuffer mappedPage = mappedPages.get(page);
+        if (mappedPage == null) {
+            try (FileChannel channel = FileChannel.open(page.file(), READ)) {
+                mappedPage = channel.map(READ_ONLY, page.offset(), page.length());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed to map portfolio page " + page, e);
+            }
+            mappedPages.put(page, mappedPage);
+            mappedBytes += page.length();
+            releaseLeastRecentPages();
+        }
+        return mappedPage.duplicate();
+    }
+
+    public synchronized long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    private void releaseLeastRecentPages() {
+        Iterator<Map.Entry<DocumentPage, MappedByteBuffer>> iterator = mappedPages.entrySet().iterator();
+        while (mappedBytes > maxMappedBytes && mappedPages.size() > 1 && iterator.hasNext()) {
+            DocumentPage page = iterator.next().getKey();
+            iterator.remove();
+            mappedBytes -= page.length();
+            log.trace("Released mapped portfolio page {}", page);
+        }
+    }
+
+    @FakeImpl("Emulates a scanned portfolio document by creating a sparse file of the typical size")
+    private Path provideDocument(int vetId) throws IOException {
+        Path documentPath = dataDir.resolve("vet-%d.scan".formatted(vetId));
+        if (!Files.exists(documentPath)) {
+            Files.createDirectories(dataDir);
+            // the document is prepared aside and then moved in place at once, so that a concurrent first access
+            // never sees it incomplete (e.g. empty)
+            Path tempPath = Files.createTempFile(dataDir, "vet-%d-".formatted(vetId), ".tmp");
+            try {
+                try (RandomAccessFile documentFile = new RandomAccessFile(tempPath.toFile(), "rw")) {
+                    documentFile.setLength(DOCUMENT_SIZE);
+                }
+                Files.move(tempPath, documentPath, ATOMIC_MOVE);
+            }
+            catch (FileAlreadyExistsException e) {
+                log.trace("Portfolio document of vet {} has been created concurrently", vetId);
+            }
+            finally {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+        return documentPath;
+    }
+
+    /**
+     * A handle of a single document page. Holds no content, use {@link #open(DocumentPage)} to access it.
+     *
+     * @param file   the document file
+     * @param offset position of the page within the file
+     * @param length size of the page in bytes
+     */
+    public record DocumentPage(Path file, long offset, int length) {
+    }
+}
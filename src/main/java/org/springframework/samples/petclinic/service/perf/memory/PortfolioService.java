@@ -6,15 +6,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.PetRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
-import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -36,18 +35,24 @@ public class PortfolioService {
     private final boolean isSavingEnabled;
 
     /**
-     * A request-scoped storage of portfolios for accessing them from various corners of the application
+     * Name of the request attribute holding the portfolio shared for accessing it from various corners of the
+     * application. Being bound to the request (rather than to the serving thread), the portfolio is released as soon
+     * as the request completes, no matter whether it is served by a pooled platform thread or by a virtual one.
      */
-    private final ThreadLocal<VetPortfolio> sharedPortfolio = new ThreadLocal<>();
+    private static final String SHARED_PORTFOLIO_ATTRIBUTE = PortfolioService.class.getName() + ".sharedPortfolio";
     private final boolean isSharingEnabled;
 
     // For heap dump analysis demonstration
     private final PetRepository petRepository;
-    private final Set<Pet> petsCache = new HashSet<>();
+    private volatile PetColumnarCache petsCache = PetColumnarCache.EMPTY;
+
+    private final PortfolioDocumentStore documentStore;
 
     public PortfolioService(@Value("${save-portfolio:false}") boolean isSavingEnabled,
                             @Value("${share-portfolio:false}") boolean isSharingEnabled,
-                            PetRepository petRepository) {
+                            PetRepository petRepository,
+                            PortfolioDocumentStore documentStore) {
+        this.documentStore = documentStore;
         this.isSavingEnabled = isSavingEnabled;
         this.isSharingEnabled = isSharingEnabled;
         this.petRepository = petRepository;
@@ -66,8 +71,13 @@ public class PortfolioService {
         }
 
         if (isSharingEnabled) {
-            sharedPortfolio.set(portfolio);
-            log.info("Portfolio has been shared");
+            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+            if (requestAttributes != null) {
+                requestAttributes.setAttribute(SHARED_PORTFOLIO_ATTRIBUTE, portfolio, RequestAttributes.SCOPE_REQUEST);
+                log.info("Portfolio has been shared");
+            } else {
+                log.warn("Portfolio can't be shared outside of a web request");
+            }
         }
     }
 
@@ -75,12 +85,12 @@ public class PortfolioService {
         log.debug("Loading portfolio for vet: {} {}", vet.getFirstName(), vet.getLastName());
 
         // We currently support only the last entry of portfolio - current internship
-        var documentScan = ByteBuffer.allocate(1 << 23);        // emulating loading of approx. 8MB
+        var documentPages = documentStore.findPages(vet.getId());     // handles only, the pages are mapped on demand
 
         return new VetPortfolio(
             "Spring PetClinic",
             "intern",
-            List.of(documentScan),       // single page only
+            documentPages,
             LocalDate.now().minusMonths(6),
             null        // means "up to this day"
         );
@@ -93,12 +103,15 @@ public class PortfolioService {
 
     @SuppressWarnings("unused")     // for future usage
     public Optional<VetPortfolio> getSharedPortfolio() {
-        return Optional.ofNullable(sharedPortfolio.get());
+        return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
+            .map(attributes -> attributes.getAttribute(SHARED_PORTFOLIO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))
+            .map(VetPortfolio.class::cast);
     }
 
     @EventListener(ApplicationReadyEvent.class)
     public void warmupPetCache() {
-        petsCache.addAll(petRepository.findAll());
-        log.debug("Pets cache warmed up (size={})", petsCache.size());
+        petsCache = PetColumnarCache.of(petRepository.findAll());
+        log.debug("Pets cache warmed up (size={}, visits={}, footprint={} bytes)",
+            petsCache.size(), petsCache.visitsCount(), petsCache.footprintBytes());
     }
 }
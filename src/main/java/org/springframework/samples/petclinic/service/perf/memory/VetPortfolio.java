@@ -1,24 +1,27 @@
 package org.springframework.samples.petclinic.service.perf.memory;
 
-import java.nio.ByteBuffer;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.samples.petclinic.service.perf.memory.PortfolioDocumentStore.DocumentPage;
+
 /**
  * @author Vladimir Plizga
  */
 public class VetPortfolio {
     private final String company;
     private final String role;
-    private static final List<ByteBuffer> documentPages = new ArrayList<>();
+    /**
+     * Handles of the document pages; their contents are available through {@link PortfolioDocumentStore#open}
+     */
+    private final List<DocumentPage> documentPages;
     private final LocalDate fromDate;
     private final LocalDate toDate;
 
-    public VetPortfolio(String company, String role, List<ByteBuffer> documentsPages, LocalDate fromDate, LocalDate toDate) {
+    public VetPortfolio(String company, String role, List<DocumentPage> documentPages, LocalDate fromDate, LocalDate toDate) {
         this.company = company;
         this.role = role;
-        documentPages.addAll(documentsPages);
+        this.documentPages = List.copyOf(documentPages);
         this.fromDate = fromDate;
         this.toDate = toDate;
     }
@@ -33,7 +36,7 @@ public class VetPortfolio {
     }
 
     @SuppressWarnings("unused")         // reserved for further development
-    public List<ByteBuffer> getDocumentPages() {
+    public List<DocumentPage> getDocumentPages() {
         return documentPages;
     }
 
@@ -1,8 +1,8 @@
 package org.springframework.samples.petclinic.service.perf.memory.ai;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Random;
 
 import net.datafaker.Faker;
@@ -14,6 +14,9 @@ import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.service.perf.FakeImpl;
 
 /**
+ * A streaming conversation with an AI model. The messages are folded into a rolling summarizer state as they arrive
+ * and only the last {@value #WINDOW_SIZE} of them are retained, so the memory taken by the conversation is bounded by
+ * the window rather than by the transcript length.
  *
  * @author Vladimir Plizga
  */
@@ -21,8 +24,16 @@ public class AiConversation {
     private static final Logger log = LoggerFactory.getLogger(AiConversation.class);
     private static final Faker DATA_FAKER = new Faker();
 
-    private final List<String> messages = new ArrayList<>();
+    /**
+     * How many of the latest messages are kept for the summarization
+     */
+    static final int WINDOW_SIZE = 8;
+
+    private final Deque<String> window = new ArrayDeque<>(WINDOW_SIZE);
     private final Pet pet;
+    // rolling summarizer state
+    private int messagesCount;
+    private long transcriptLength;
 
     public AiConversation(Pet pet) {
         this.pet = pet;
@@ -35,60 +46,32 @@ public class AiConversation {
         Text messageGenerator = DATA_FAKER.text();
         int cnt = 1_000;
         while (cnt-- > 0) {
-            messages.add(messageGenerator.text(10_000));
+            accept(messageGenerator.text(10_000));
         }
-        return makeSummary(messages);
+        return makeSummary();
+    }
+
+    /**
+     * Folds the next message of the conversation into the summarizer state
+     */
+    void accept(String message) {
+        messagesCount++;
+        transcriptLength += message.length();
+        if (window.size() == WINDOW_SIZE) {
+            window.removeFirst();
+        }
+        window.addLast(message);
     }
 
     @FakeImpl("Models summarization of LLM interaction by means of composing a fixed set of random strings")
-    public Summary makeSummary(List<String> messages) {
-        log.debug("Generating summary from conversation consisting of {} messages", messages.size());
+    Summary makeSummary() {
+        log.debug("Generating summary from conversation consisting of {} messages ({} chars in total, {} retained)",
+            messagesCount, transcriptLength, window.size());
 
         String prescription = DATA_FAKER.medication().drugName();
         String diagnosisCode = DATA_FAKER.medicalProcedure().icd10();
         LocalDate nextVisit = LocalDate.now().plusDays(new Random().nextInt(30));
 
-        return new Summary(diagnosisCode, prescription, nextVisit);
-    }
-
-    public class Summary {
-        /**
-         * Short diagnosis code in ICD10 format (like '94p5ArW')
-         */
-        private final String diagnosis;
-
-        /**
-         * Short name of a drug to take (like 'Gentaotic')
-         */
-        private final String prescription;
-
-        /**
-         * The date of next visit to a veterinarian (year, month, day)
-         */
-        private final LocalDate nextVisit;
-
-        public Summary(String diagnosis, String prescription, LocalDate nextVisit) {
-            this.diagnosis = diagnosis;
-            this.prescription = prescription;
-            this.nextVisit = nextVisit;
-        }
-
-        public String getDiagnosis() {
-            return diagnosis;
-        }
-
-        public String getPrescription() {
-            return prescription;
-        }
-
-        public LocalDate getNextVisit() {
-            return nextVisit;
-        }
-
-        @Override
-        public String toString() {
-            return "Summary from AiConversation of %d messages: diagnosis: %s, prescription: %s, nextVisit: %s"
-                .formatted(messages.size(), diagnosis, prescription, nextVisit);
-        }
+        return new Summary(diagnosisCode, prescription, nextVisit, messagesCount);
     }
 }
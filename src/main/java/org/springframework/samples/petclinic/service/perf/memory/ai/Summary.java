@@ -0,0 +1,22 @@
+package org.springframework.samples.petclinic.service.perf.memory.ai;
+
+import java.time.LocalDate;
+
+/**
+ * A brief result of an {@link AiConversation}. Holds no references to the conversation itself so that caching the
+ * summary doesn't retain the conversation transcript.
+ *
+ * @param diagnosis     short diagnosis code in ICD10 format (like '94p5ArW')
+ * @param prescription  short name of a drug to take (like 'Gentaotic')
+ * @param nextVisit     the date of next visit to a veterinarian (year, month, day)
+ * @param messagesCount the number of messages the conversation consisted of
+ * @author Vladimir Plizga
+ */
+public record Summary(String diagnosis, String prescription, LocalDate nextVisit, int messagesCount) {
+
+    @Override
+    public String toString() {
+        return "Summary from AiConversation of %d messages: diagnosis: %s, prescription: %s, nextVisit: %s"
+            .formatted(messagesCount, diagnosis, prescription, nextVisit);
+    }
+}
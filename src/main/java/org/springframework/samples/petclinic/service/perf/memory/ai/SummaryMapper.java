@@ -3,7 +3,6 @@ package org.springframework.samples.petclinic.service.perf.memory.ai;
 import org.mapstruct.Mapper;
 
 import org.springframework.samples.petclinic.rest.dto.SummaryDto;
-import org.springframework.samples.petclinic.service.perf.memory.ai.AiConversation.Summary;
 
 /**
  *
@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+
+/**
+ * Index of drugs by the minimal age (in full years) of animals allowed to take them. <p/>
+ * Every distinct drug is put into a single age bucket, and the buckets keep cumulative drug counts, so a pet is
+ * evaluated against the few bucket cutoff dates only, regardless of the number of drugs.
+ *
+ * @author Vladimir Plizga
+ */
+class DrugCompatibilityIndex {
+
+    /**
+     * Minimal ages of the buckets, ascending
+     */
+    private final int[] minAges;
+
+    /**
+     * Drugs of every bucket (in the same order as {@link #minAges})
+     */
+    private final List<Set<String>> drugsByBucket;
+
+    /**
+     * The number of drugs in the bucket and all the preceding ones
+     */
+    private final int[] cumulativeCounts;
+
+    DrugCompatibilityIndex(Collection<String> drugs, ToIntFunction<String> minAgeOfDrug) {
+        Map<Integer, Set<String>> buckets = new TreeMap<>();
+        for (String drug : new LinkedHashSet<>(drugs)) {
+            buckets.computeIfAbsent(minAgeOfDrug.applyAsInt(drug), age -> new LinkedHashSet<>()).add(drug);
+        }
+        this.minAges = buckets.keySet().stream().mapToInt(Integer::intValue).toArray();
+        this.drugsByBucket = buckets.values().stream().map(Collections::unmodifiableSet).toList();
+        this.cumulativeCounts = new int[minAges.length];
+        int count = 0;
+        for (int i = 0; i < minAges.length; i++) {
+            count += drugsByBucket.get(i).size();
+            cumulativeCounts[i] = count;
+        }
+    }
+
+    /**
+     * Evaluates every pet once against the bucket cutoffs computed for the given day
+     */
+    Compatibility evaluate(List<PetDto> pets, LocalDate today) {
+        LocalDate[] cutoffs = new LocalDate[minAges.length];
+        for (int i = 0; i < minAges.length; i++) {
+            cutoffs[i] = today.minusYears(minAges[i]);
+        }
+
+        long compatiblePairs = 0;
+        int widestBucket = -1;
+        for (PetDto pet : pets) {
+            int bucket = lastAllowedBucket(pet.getBirthDate(), cutoffs);
+            if (bucket >= 0) {
+                compatiblePairs += cumulativeCounts[bucket];
+                widestBucket = Math.max(widestBucket, bucket);
+            }
+        }
+
+        Set<String> compatibleDrugs = new HashSet<>();
+        for (int i = 0; i <= widestBucket; i++) {
+            compatibleDrugs.addAll(drugsByBucket.get(i));
+        }
+        return new Compatibility(compatiblePairs, compatibleDrugs);
+    }
+
+    int size() {
+        return (cumulativeCounts.length > 0) ? cumulativeCounts[cumulativeCounts.length - 1] : 0;
+    }
+
+    /**
+     * @return the index of the last bucket whose drugs are allowed for a pet born on given date, or {@code -1} if
+     * none of the drugs is allowed. As the cutoffs are descending, all the preceding buckets are allowed as well.
+     */
+    private static int lastAllowedBucket(LocalDate birthDate, LocalDate[] cutoffs) {
+        int bucket = -1;
+        // the animal must not be prohibited from taking the drug, i.e. must be older than required
+        while (bucket + 1 < cutoffs.length && birthDate.isBefore(cutoffs[bucket + 1])) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * @param compatiblePairs the number of (pet, drug) pairs where the pet is allowed to take the drug; a drug listed
+     *                        more than once is counted once
+     * @param compatibleDrugs distinct drugs allowed for at least one of the pets
+     */
+    record Compatibility(long compatiblePairs, Set<String> compatibleDrugs) {
+    }
+}
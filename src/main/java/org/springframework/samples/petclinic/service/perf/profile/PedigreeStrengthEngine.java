@@ -0,0 +1,207 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.util.Assert;
+
+/**
+ * Computes and keeps pedigree strengths (the number of ancestors) of pets. <p/>
+ * The number of ancestors for every lineage depth is computed once, iteratively. The strengths are stored in a
+ * primitive open-addressing hash table keyed by pet id along with a fingerprint of the pet, so that only new or
+ * changed pets are recomputed on subsequent updates. The table grows with the number of pets rather than with their
+ * ids, so sparse, huge or negative ids are fine.
+ *
+ * @author Vladimir Plizga
+ */
+class PedigreeStrengthEngine {
+
+    /**
+     * The deepest lineage whose number of ancestors (92nd Fibonacci number) still fits into {@code long}
+     */
+    static final int MAX_LINEAGE_DEPTH = 92;
+
+    /**
+     * Must be a power of two
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long strengthForDepth;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // parallel arrays indexed by slot, the slot of an id is found by linear probing; a null name marks a free slot
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private long[] strengths = new long[INITIAL_CAPACITY];
+    private int[] fingerprints = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size = 0;
+
+    PedigreeStrengthEngine(int lineageDepth) {
+        Assert.isTrue(lineageDepth >= 0 && lineageDepth <= MAX_LINEAGE_DEPTH,
+            "Lineage depth must be within [0, %d]".formatted(MAX_LINEAGE_DEPTH));
+        this.strengthForDepth = countAncestors(lineageDepth);
+    }
+
+    /**
+     * Computes pedigree strengths for those of given pets that are new or changed since the previous update
+     *
+     * @return the number of pets whose strengths have been (re)computed
+     */
+    int update(List<PetDto> pets) {
+        List<PetDto> changedPets = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (PetDto pet : pets) {
+                Integer id = pet.getId();
+                if (id != null && !isUpToDate(id, fingerprint(pet))) {
+                    changedPets.add(pet);
+                }
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        if (changedPets.isEmpty()) {
+            return 0;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (PetDto pet : changedPets) {
+                ensureCapacity(size + 1);
+                int id = pet.getId();
+                int slot = slotOf(id);
+                if (names[slot] == null) {
+                    ids[slot] = id;
+                    size++;
+                }
+                strengths[slot] = strengthForDepth;      // doesn't depend on a particular pet so far
+                fingerprints[slot] = fingerprint(pet);
+                names[slot] = Objects.requireNonNullElse(pet.getName(), "");
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        return changedPets.size();
+    }
+
+    OptionalLong getStrength(int petId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(petId);
+            return (names[slot] != null) ? OptionalLong.of(strengths[slot]) : OptionalLong.empty();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exports the strengths in the {@link Properties#storeToXML XML format of Properties} where the key is the pet
+     * name and the value is its pedigree strength
+     */
+    void exportToXml(OutputStream out) throws IOException {
+        Properties properties = new Properties();
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < names.length; slot++) {
+                if (names[slot] != null) {
+                    properties.setProperty(names[slot], String.valueOf(strengths[slot]));
+                }
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        properties.storeToXML(out, "Pets pedigree strengths");
+    }
+
+    private boolean isUpToDate(int id, int fingerprint) {
+        int slot = slotOf(id);
+        return names[slot] != null && fingerprints[slot] == fingerprint;
+    }
+
+    /**
+     * @return the slot holding the given id or the free slot where it belongs
+     */
+    private int slotOf(int id) {
+        int mask = names.length - 1;
+        int slot = hash(id) & mask;
+        while (names[slot] != null && ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int id) {
+        // consecutive ids must not end up in consecutive slots, which would make the probing sequences long
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Doubles the table (rehashing all the entries) if it would get more than half full with the given size
+     */
+    private void ensureCapacity(int newSize) {
+        if (newSize * 2 <= names.length) {
+            return;
+        }
+        int[] oldIds = ids;
+        long[] oldStrengths = strengths;
+        int[] oldFingerprints = fingerprints;
+        String[] oldNames = names;
+        int newCapacity = names.length * 2;
+        ids = new int[newCapacity];
+        strengths = new long[newCapacity];
+        fingerprints = new int[newCapacity];
+        names = new String[newCapacity];
+        for (int oldSlot = 0; oldSlot < oldNames.length; oldSlot++) {
+            if (oldNames[oldSlot] != null) {
+                int slot = slotOf(oldIds[oldSlot]);
+                ids[slot] = oldIds[oldSlot];
+                strengths[slot] = oldStrengths[oldSlot];
+                fingerprints[slot] = oldFingerprints[oldSlot];
+                names[slot] = oldNames[oldSlot];
+            }
+        }
+    }
+
+    private static int fingerprint(PetDto pet) {
+        return Objects.hash(pet.getName(), pet.getBirthDate());
+    }
+
+    /**
+     * @return the number of ancestors of a pet with given lineage depth (i.e. the Fibonacci number), computed
+     * iteratively
+     */
+    static long countAncestors(int lineageDepth) {
+        long current = 0;
+        long next = 1;
+        for (int depth = 0; depth < lineageDepth; depth++) {
+            long afterNext = current + next;
+            current = next;
+            next = afterNext;
+        }
+        return current;
+    }
+}
@@ -1,30 +1,34 @@
 package org.springframework.samples.petclinic.service.perf.profile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import net.datafaker.Faker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.service.perf.FakeImpl;
+import org.springframework.samples.petclinic.service.perf.profile.DrugCompatibilityIndex.Compatibility;
+import org.springframework.samples.petclinic.util.jfr.PetListStageEvent;
 import org.springframework.stereotype.Service;
 
-import static java.util.stream.Collectors.joining;
-
 /**
  *
  * @author Vladimir Plizga
@@ -37,48 +41,86 @@ public class PetListPostProcessor {
     private static final int LINEAGE_DEPTH = Integer.getInteger("depth", 34);
 
     /**
-     * The mapping between pet names and their pedigree strengths (the number of ancestors).
-     * Key: pet name, value: its pedigree strength.
-     * The Properties format is chosen for easy export to XML.
+     * The minimal age of an animal allowed to take any of the available drugs
+     */
+    private static final int DRUG_MIN_AGE_YEARS = 3;
+
+    /**
+     * Thread-safe and reusable writer for pets logging
+     */
+    private static final ObjectWriter PETS_JSON_WRITER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .writer(new DefaultPrettyPrinter());
+
+    /**
+     * Pedigree strengths (the number of ancestors) of the pets, exportable to XML in the Properties format
      */
-    private final Properties pedigreeStrengths = new Properties();
+    private final PedigreeStrengthEngine pedigreeStrengths = new PedigreeStrengthEngine(LINEAGE_DEPTH);
 
     /**
-     * A list of medications that currently can be found in the clinic
+     * Medications that currently can be found in the clinic, indexed by the minimal age of animals
      */
-    private final List<String> availableDrugs = preloadAvailableDrugs();
+    private final DrugCompatibilityIndex availableDrugs =
+        new DrugCompatibilityIndex(preloadAvailableDrugs(), drug -> DRUG_MIN_AGE_YEARS);
 
     /**
      * Human-readable pet identifiers combining both the name and the ID for each pet
      */
-    private final Set<String> petUniqueIds = new HashSet<>();
+    private final PetUniqueIdRegistry petUniqueIds;
+
+    public PetListPostProcessor(MeterRegistry meterRegistry,
+                                @Value("${pet-unique-ids-capacity:100000}") int petUniqueIdsCapacity) {
+        this.petUniqueIds = new PetUniqueIdRegistry(petUniqueIdsCapacity);
+
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.pets.unique-ids.size
+        Gauge.builder("petclinic.pets.unique-ids.size", petUniqueIds, PetUniqueIdRegistry::size)
+            .baseUnit("pcs")
+            .register(meterRegistry);
+
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.pets.unique-ids.evictions
+        FunctionCounter.builder("petclinic.pets.unique-ids.evictions", petUniqueIds,
+                PetUniqueIdRegistry::evictionCount)
+            .register(meterRegistry);
+    }
 
     public void postProcessPetList(List<PetDto> pets) {
 
-        logPets(pets);
+        runStage("logPets", pets, this::logPets);
 
-        generateUniqueIDs(pets);
+        runStage("generateUniqueIDs", pets, this::generateUniqueIDs);
 
-        loadCompatibleDrugs(pets);
+        runStage("loadCompatibleDrugs", pets, this::loadCompatibleDrugs);
 
-        checkForSpecialNames(pets);
+        runStage("checkForSpecialNames", pets, this::checkForSpecialNames);
 
-        computePedigreeStrengths(pets);
+        runStage("computePedigreeStrengths", pets, this::computePedigreeStrengths);
     }
 
     /**
-     * Outputs the pet list in JSON format to the log on TRACE level
+     * Runs a single stage of the processing within a {@link PetListStageEvent} so that JFR recordings attribute the
+     * time and allocations to the stages rather than to the whole request
      */
-    private void logPets(List<PetDto> pets) {
+    private static void runStage(String stage, List<PetDto> pets, Consumer<List<PetDto>> action) {
+        PetListStageEvent event = new PetListStageEvent();
+        event.start();
+        boolean processed = false;
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.setDefaultPrettyPrinter(new DefaultPrettyPrinter());
-            mapper.registerModule(new JavaTimeModule());
-            String json = mapper.writeValueAsString(pets);
-            log.trace("Pets JSON: " + json);
+            action.accept(pets);
+            processed = true;
         }
-        catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+        finally {
+            // a failed stage is recorded too, as processing no pets
+            event.complete(stage, processed ? pets.size() : 0);
+        }
+    }
+
+    /**
+     * Outputs the pet list in JSON format to the log on TRACE level. Does nothing (and allocates nothing) unless TRACE
+     * is enabled; otherwise the list is serialized only once the logger formats the message.
+     */
+    void logPets(List<PetDto> pets) {
+        if (log.isTraceEnabled()) {
+            log.trace("Pets JSON: {}", new PetsJson(pets));
         }
     }
 
@@ -88,58 +130,48 @@ public class PetListPostProcessor {
      */
     private void generateUniqueIDs(List<PetDto> pets) {
         pets.parallelStream()
-            .map(pet -> pet.getName() + "::" + pet.getId())
-            .peek(id -> System.out.println(Thread.currentThread().getName() + ": " + id))   // for debug
-            .forEach(petUniqueIds::add);
+            .filter(pet -> pet.getId() != null)
+            .forEach(pet -> petUniqueIds.register(pet.getId(), pet.getName()));
     }
 
     /**
-     * Traverses {@link #availableDrugs} and for each pet checks if it's allowed to give the drug to the pet
+     * Checks every pet against {@link #availableDrugs} to find out which drugs are allowed to give to the pets
      */
     private void loadCompatibleDrugs(List<PetDto> pets) {
-        List<String> compatibleDrugs = new ArrayList<>();
-        for (String availableDrug : availableDrugs) {
-            for (PetDto pet : pets) {
-                // the following check ensures that the animal is not prohibited from taking that drug
-                if (pet.getBirthDate().isBefore(LocalDate.now().minusYears(3))) {
-                    compatibleDrugs.add(availableDrug);
-                }
-            }
-        }
-        log.trace("Found {} compatible drugs for {} pets", compatibleDrugs.size(), pets.size());
+        Compatibility compatibility = availableDrugs.evaluate(pets, LocalDate.now());
+        log.trace("Found {} compatible drugs ({} pet-drug pairs) for {} pets",
+            compatibility.compatibleDrugs().size(), compatibility.compatiblePairs(), pets.size());
     }
 
     /**
-     * Collects the names of the pets into a single text and check if it contains a special name pattern
+     * Checks if the names of the pets (each tripled and followed by '!') form a special name pattern, i.e. match
+     * {@code ^(\w+\s?)*$} regular expression. The names are scanned one by one, without being concatenated.
      */
     private void checkForSpecialNames(List<PetDto> pets) {
-        String petNames = pets.stream()
-            .map(PetDto::getName)
-            .map(name -> name.concat(name).concat(name))
-            .collect(joining("", "", "!"));
-
-        Pattern pat = Pattern.compile("^(\\w+\\s?)*$");
+        SpecialNameDetector detector = new SpecialNameDetector();
+        for (PetDto pet : pets) {
+            String name = pet.getName();
+            detector.feed(name);
+            detector.feed(name);
+            detector.feed(name);
+            if (detector.isRejected()) {
+                return;
+            }
+        }
+        detector.feed("!");
 
-        Matcher m = pat.matcher(petNames);
-        if (m.matches()) {
-            log.info("Found special name: {}", m.group(1));
+        if (detector.matches()) {
+            log.info("Found special name: {}", detector.lastGroup().orElse(null));
         }
     }
 
     /**
-     * Computes and updates the pedigree strengths for a list of pets.
+     * Computes and updates the pedigree strengths for those pets of the list that are new or changed.
      * The pedigree strength for a pet is determined by calculating the number of the pet's ancestors.
      */
     private void computePedigreeStrengths(List<PetDto> pets) {
-        for (PetDto pet : pets) {
-            pedigreeStrengths.compute(pet.getName(),
-                (oldVal, newVal) -> fib(LINEAGE_DEPTH));
-        }
-    }
-
-    private long fib(int n) {
-        if (n <= 1) return n;
-        return fib(n - 1) + fib(n - 2);
+        int updatedCount = pedigreeStrengths.update(pets);
+        log.trace("Pedigree strengths updated for {} of {} pets", updatedCount, pets.size());
     }
 
     @FakeImpl("Simulates loading of a list of available animal drugs from an external source")
@@ -152,13 +184,33 @@ public class PetListPostProcessor {
         return compatibleDrugs;
     }
 
+    /**
+     * Lazy JSON representation of a pet list, serialized on every call of {@link #toString()}
+     */
+    private record PetsJson(List<PetDto> pets) {
+        @Override
+        public String toString() {
+            try {
+                return PETS_JSON_WRITER.writeValueAsString(pets);
+            }
+            catch (JsonProcessingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     @PostConstruct
     public void afterPropertiesSet() {
         log.info("PetListPostProcessor initialized");
     }
 
+    @SuppressWarnings("unused")         // for future integration
+    public void exportPedigreeStrengths(OutputStream out) throws IOException {
+        pedigreeStrengths.exportToXml(out);
+    }
+
     @SuppressWarnings("unused")         // for future integration
     public Set<String> getPetUniqueIds() {
-        return petUniqueIds;
+        return petUniqueIds.toReadableIds();
     }
 }
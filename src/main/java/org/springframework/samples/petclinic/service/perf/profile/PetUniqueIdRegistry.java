@@ -0,0 +1,183 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.Assert;
+
+/**
+ * Thread-safe size-bounded registry of human-readable pet identifiers ({@code <name>::<id>}). <p/>
+ * Every identifier is keyed by a single {@code long} packing the pet id with the hash of the pet name. The
+ * identifiers are spread over independently locked stripes, each evicting its oldest entries once its share of the
+ * capacity is exceeded, so parallel registration rarely contends on the same lock. Nothing but the stripes holds the
+ * names, so the memory taken by the registry is bounded by its capacity whatever the number of distinct names.
+ *
+ * @author Vladimir Plizga
+ */
+class PetUniqueIdRegistry {
+
+    private static final int STRIPES_COUNT = 16;        // must be a power of two
+
+    private final Stripe[] stripes = new Stripe[STRIPES_COUNT];
+
+    private final LongAdder evictions = new LongAdder();
+
+    PetUniqueIdRegistry(int capacity) {
+        Assert.isTrue(capacity >= STRIPES_COUNT, "Capacity must not be less than " + STRIPES_COUNT);
+        int stripeCapacity = Math.ceilDiv(capacity, STRIPES_COUNT);
+        for (int i = 0; i < STRIPES_COUNT; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    /**
+     * @param name the pet name, may be {@code null}
+     */
+    void register(int petId, String name) {
+        long key = encode(petId, name);
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.add(key, name);
+        }
+    }
+
+    boolean contains(int petId, String name) {
+        long key = encode(petId, name);
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.indexOf(key, name) >= 0;
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return a snapshot of the registered identifiers in human-readable form, e.g. {@code Leo::1}
+     */
+    Set<String> toReadableIds() {
+        Set<String> readableIds = new HashSet<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int position = 0; position < stripe.size; position++) {
+                    readableIds.add(stripe.names[position] + "::" + (int) stripe.keys[position]);
+                }
+            }
+        }
+        return readableIds;
+    }
+
+    private Stripe stripeOf(long key) {
+        int hash = Long.hashCode(key) * 0x9E3779B9;     // spread sequential ids over the stripes
+        return stripes[hash >>> (Integer.SIZE - Integer.numberOfTrailingZeros(STRIPES_COUNT))];
+    }
+
+    private static long encode(int petId, String name) {
+        return ((long) Objects.hashCode(name) << 32) | (petId & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * A part of the registry evicting its eldest entries on overflow. The entries are kept in a ring buffer in the
+     * order of registration and indexed by a linear-probing hash table of their positions, both of primitives. Not
+     * thread-safe by itself, must be accessed under its own monitor.
+     */
+    private final class Stripe {
+
+        /**
+         * The ring buffer: keys and names of the entries, the eldest one is at {@link #next} once the ring is full
+         */
+        private final long[] keys;
+        private final String[] names;
+        private int next;
+        private int size;
+
+        /**
+         * The index: position of an entry in the ring plus one, zero marks a free slot
+         */
+        private final int[] slots;
+
+        Stripe(int capacity) {
+            keys = new long[capacity];
+            names = new String[capacity];
+            // at most half full, so that the probing sequences stay short
+            slots = new int[Integer.highestOneBit(capacity) << 2];
+        }
+
+        void add(long key, String name) {
+            if (indexOf(key, name) >= 0) {
+                return;
+            }
+            if (size == keys.length) {
+                removeSlot(slotOf(next));
+                evictions.increment();
+            }
+            else {
+                size++;
+            }
+            keys[next] = key;
+            names[next] = name;
+            int slot = home(key);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = next + 1;
+            next = (next + 1) % keys.length;
+        }
+
+        /**
+         * @return the position of the entry in the ring or {@code -1} if there is no such entry
+         */
+        int indexOf(long key, String name) {
+            for (int slot = home(key); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+                int position = slots[slot] - 1;
+                // different names may have the same hash
+                if (keys[position] == key && Objects.equals(names[position], name)) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+
+        private int slotOf(int position) {
+            int slot = home(keys[position]);
+            while (slots[slot] != position + 1) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            return slot;
+        }
+
+        /**
+         * Frees the slot shifting back the following entries of the probing sequence, so that no tombstones are needed
+         */
+        private void removeSlot(int slot) {
+            int mask = slots.length - 1;
+            int gap = slot;
+            for (int current = (slot + 1) & mask; slots[current] != 0; current = (current + 1) & mask) {
+                int home = home(keys[slots[current] - 1]);
+                // the entry may fill the gap only if the gap lies between its home slot and the current one
+                if (((current - home) & mask) >= ((current - gap) & mask)) {
+                    slots[gap] = slots[current];
+                    gap = current;
+                }
+            }
+            slots[gap] = 0;
+        }
+
+        private int home(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (slots.length - 1);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Incremental linear-time equivalent of matching a text against {@code ^(\w+\s?)*$} regular expression. <p/>
+ * The text is fed by pieces with {@link #feed(CharSequence)}; the pieces are neither copied nor concatenated. The
+ * text matches if it consists of {@code \w} and {@code \s} characters only, and every {@code \s} is preceded by a
+ * {@code \w}. Like the regex, the detector reports the last repetition of the group: the last run of word characters
+ * along with its trailing whitespace (if any).
+ *
+ * @author Vladimir Plizga
+ */
+class SpecialNameDetector {
+
+    private enum State {
+        /**
+         * At the very beginning or right after a whitespace: only a word character may follow
+         */
+        EXPECTING_WORD,
+        /**
+         * Inside a word: a word character or a single whitespace may follow
+         */
+        IN_WORD,
+        /**
+         * The text can't match anymore, the rest of it is ignored
+         */
+        REJECTED
+    }
+
+    private State state = State.EXPECTING_WORD;
+
+    /**
+     * The pieces of the text holding the current (i.e. the last so far) repetition of the group
+     */
+    private final List<CharSequence> groupPieces = new ArrayList<>();
+
+    /**
+     * Start of the current group within its first piece
+     */
+    private int groupStart = -1;
+
+    /**
+     * End of the current group (exclusive) within its last piece
+     */
+    private int groupEnd = -1;
+
+    void feed(CharSequence piece) {
+        boolean pieceInGroup = false;
+        for (int i = 0; i < piece.length() && state != State.REJECTED; i++) {
+            char ch = piece.charAt(i);
+            if (isWordChar(ch)) {
+                if (state == State.EXPECTING_WORD) {        // a new repetition of the group begins
+                    groupPieces.clear();
+                    pieceInGroup = false;
+                    groupStart = i;
+                }
+                state = State.IN_WORD;
+            }
+            else if (isSpaceChar(ch) && state == State.IN_WORD) {
+                state = State.EXPECTING_WORD;
+            }
+            else {
+                state = State.REJECTED;
+                groupPieces.clear();
+                return;
+            }
+            if (!pieceInGroup) {
+                groupPieces.add(piece);
+                pieceInGroup = true;
+            }
+            groupEnd = i + 1;
+        }
+    }
+
+    boolean isRejected() {
+        return state == State.REJECTED;
+    }
+
+    /**
+     * @return {@code true} if the whole text fed so far matches the expression
+     */
+    boolean matches() {
+        return state != State.REJECTED;
+    }
+
+    /**
+     * @return the last repetition of the group if the text matches and is not empty
+     */
+    Optional<String> lastGroup() {
+        if (!matches() || groupPieces.isEmpty()) {
+            return Optional.empty();
+        }
+        StringBuilder group = new StringBuilder();
+        int lastIdx = groupPieces.size() - 1;
+        for (int i = 0; i <= lastIdx; i++) {
+            CharSequence piece = groupPieces.get(i);
+            group.append(piece, (i == 0) ? groupStart : 0, (i == lastIdx) ? groupEnd : piece.length());
+        }
+        return Optional.of(group.toString());
+    }
+
+    /**
+     * Same as {@code \w} in {@link java.util.regex.Pattern} (without {@code UNICODE_CHARACTER_CLASS} flag)
+     */
+    private static boolean isWordChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+    }
+
+    /**
+     * Same as {@code \s} in {@link java.util.regex.Pattern} (without {@code UNICODE_CHARACTER_CLASS} flag)
+     */
+    private static boolean isSpaceChar(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+}
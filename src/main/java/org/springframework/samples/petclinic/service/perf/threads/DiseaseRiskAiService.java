@@ -16,6 +16,7 @@ import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.PetRepository;
 import org.springframework.samples.petclinic.service.perf.FakeImpl;
+import org.springframework.samples.petclinic.util.jfr.CacheAccessEvent;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -56,7 +57,9 @@ public class DiseaseRiskAiService {
     }
 
     public List<Visit> fetchRecommendedVisits(int petId) {
-        return visitCache.computeIfAbsent(petId, this::recommendVisits);
+        List<Visit> visits = visitCache.get(petId);
+        CacheAccessEvent.record("recommended-visits", visits != null);
+        return (visits != null) ? visits : visitCache.computeIfAbsent(petId, this::recommendVisits);
     }
 
     @FakeImpl("Simulates visit recommendations by returning a single visit with fixed contents")
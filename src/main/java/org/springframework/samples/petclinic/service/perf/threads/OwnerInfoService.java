@@ -1,24 +1,54 @@
 package org.springframework.samples.petclinic.service.perf.threads;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.samples.petclinic.util.jfr.CacheAccessEvent;
+import org.springframework.samples.petclinic.util.jfr.ExternalLookupEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.FileCopyUtils;
 
 import static java.lang.ProcessBuilder.Redirect.INHERIT;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
+ * A service checking owners' accounts in other (external) services by means of an external application. <p/>
+ * The application is started once as a pool of long-living worker processes, each reading owners' phones from its
+ * stdin line by line and answering with {@code "<phone> <accounts count>"} lines to its stdout. The phones of a single
+ * request are batched and spread across the workers; the answers are cached for a while so that a phone is not looked
+ * up on every request. A worker failing or hanging on a batch is replaced with a new process.
+ *
  * @author Vladimir Plizga
  */
 @Service
@@ -26,10 +56,67 @@ import static java.lang.ProcessBuilder.Redirect.INHERIT;
 public class OwnerInfoService {
     private static final Logger log = LoggerFactory.getLogger(OwnerInfoService.class);
 
+    /**
+     * Max number of phones sent to a worker at once; keeps both stdin and stdout pipes far from getting full
+     */
+    private static final int MAX_ROUND_TRIP_SIZE = 256;
+
+    /**
+     * How long a lookup may wait for an idle worker before giving up
+     */
+    private static final int WORKER_WAIT_TIMEOUT_SECONDS = 30;
+
+    /**
+     * How long a worker may take to answer a batch of phones before it is considered hung and replaced
+     */
+    private static final int ROUND_TRIP_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Max number of telephones kept in the cache; the eldest ones are evicted beyond it
+     */
+    private static final int MAX_CACHED_TELEPHONES = 10_000;
+
+    /**
+     * How long a cached number of accounts is trusted before it is looked up again
+     */
+    private static final long CACHED_ACCOUNTS_TTL_NANOS = MINUTES.toNanos(10);
+
+    private final int workersCount;
+
+    /**
+     * Workers that are ready to accept a batch of phones
+     */
+    private final BlockingQueue<Worker> idleWorkers;
+
+    /**
+     * Number of workers that failed to restart; they are started again by the following lookups
+     */
+    private final AtomicInteger missingWorkers = new AtomicInteger();
+
+    /**
+     * Lookup results cache in the order of lookups, guarded by its own monitor. <br/>
+     * Key: owner telephone <br/>
+     * Value: number of owner accounts in other services along with the time it expires at
+     */
+    private final Map<String, CachedAccounts> accountsCache = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedAccounts> eldest) {
+            return size() > MAX_CACHED_TELEPHONES;
+        }
+    };
+
     private Path scriptTempPath;
 
     private ProcessBuilder processBuilder;
 
+    private ExecutorService lookupExecutor;
+
+    public OwnerInfoService(@Value("${owner-info-workers:4}") int workersCount) {
+        Assert.isTrue(workersCount > 0, "Number of owner info workers must be positive");
+        this.workersCount = workersCount;
+        this.idleWorkers = new ArrayBlockingQueue<>(workersCount);
+    }
+
     @PostConstruct
     void prepareExternalApplication() {
         boolean isWindows = System.getProperty("os.name").toLowerCase().contains("windows");
@@ -55,10 +142,15 @@ public class OwnerInfoService {
                 : "/bin/sh -c %s".formatted(scriptTempPath).split(" ");
 
             processBuilder = new ProcessBuilder(command);
-            processBuilder.redirectError(INHERIT);
-            processBuilder.redirectOutput(INHERIT);
+            processBuilder.redirectError(INHERIT);      // stdout is kept piped as it carries the answers
 
             log.debug("Prepared external application '{}' with command '{}'", scriptTempPath, command);
+
+            for (int i = 0; i < workersCount; i++) {
+                idleWorkers.add(new Worker(processBuilder));
+            }
+            lookupExecutor = Executors.newFixedThreadPool(workersCount);
+            log.debug("Started {} owner info workers", workersCount);
         }
         catch (IOException e) {
             log.error("Failed to prepare external script", e);
@@ -69,28 +161,154 @@ public class OwnerInfoService {
         }
     }
 
-    public void checkOwnerInfo(String ownerTelephone) {
+    /**
+     * Looks up the number of accounts in other services for every given telephone. Already known telephones are
+     * answered from the cache, the rest are split into batches and looked up by the workers concurrently.
+     *
+     * @param ownerTelephones telephones to check (duplicates are allowed)
+     * @return the number of accounts per telephone; telephones failed to look up are omitted
+     */
+    public Map<String, Integer> checkOwnersInfo(Collection<String> ownerTelephones) {
+        Map<String, Integer> accounts = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (accountsCache) {
+            for (String telephone : new LinkedHashSet<>(ownerTelephones)) {
+                CachedAccounts cached = accountsCache.get(telephone);
+                if (cached != null && cached.expiresAt() - now > 0) {
+                    accounts.put(telephone, cached.count());
+                }
+                else {
+                    misses.add(telephone);
+                }
+            }
+        }
+
+        int cachedCount = accounts.size();
+        CacheAccessEvent.record("owner-accounts", cachedCount, misses.size());
 
+        if (!misses.isEmpty() && lookupExecutor != null) {
+            restartMissingWorkers();
+            int batchSize = Math.ceilDiv(misses.size(), workersCount);
+            List<RoundTrip> roundTrips = new ArrayList<>();
+            for (int from = 0; from < misses.size(); from += batchSize) {
+                List<String> batch = misses.subList(from, Math.min(from + batchSize, misses.size()));
+                Worker worker = acquireWorker(batch.size());
+                if (worker != null) {
+                    ExternalLookupEvent event = new ExternalLookupEvent();
+                    event.start();
+                    Future<Map<String, Integer>> answers = lookupExecutor.submit(() -> worker.lookUp(batch));
+                    roundTrips.add(new RoundTrip(worker, batch, event, answers));
+                }
+            }
+            // every round trip must be completed to get its worker back to the pool
+            roundTrips.forEach(roundTrip -> accounts.putAll(complete(roundTrip)));
+        }
+
+        log.info("Number of owner accounts in other services: {} (looked up: {}, cached: {})",
+            accounts, misses.size(), cachedCount);
+        return accounts;
+    }
+
+    public int checkOwnerInfo(String ownerTelephone) {
+        return checkOwnersInfo(List.of(ownerTelephone)).getOrDefault(ownerTelephone, 0);
+    }
+
+    private Worker acquireWorker(int telephonesCount) {
         try {
-            processBuilder.command().add(ownerTelephone);
+            Worker worker = idleWorkers.poll(WORKER_WAIT_TIMEOUT_SECONDS, SECONDS);
+            if (worker == null) {
+                log.warn("No owner info worker became available in {} s; skipping {} telephone(s)",
+                    WORKER_WAIT_TIMEOUT_SECONDS, telephonesCount);
+            }
+            return worker;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for an owner info worker; skipping {} telephone(s)", telephonesCount);
+            return null;
+        }
+    }
 
-            Process process = processBuilder.start();
-            log.debug("External process launched...");
+    /**
+     * Waits for the answers of the round trip (at most {@link #ROUND_TRIP_TIMEOUT_SECONDS}) and gives the worker
+     * back to the pool, or replaces it if it has failed or hung
+     */
+    private Map<String, Integer> complete(RoundTrip roundTrip) {
+        Worker worker = roundTrip.worker();
+        int keys = roundTrip.telephones().size();
+        try {
+            Map<String, Integer> accounts = roundTrip.answers().get(ROUND_TRIP_TIMEOUT_SECONDS, SECONDS);
+            roundTrip.event().complete("owner-info", worker.toString(), keys, accounts.size());
+            cacheAccounts(accounts);
+            return accounts;
+        }
+        catch (ExecutionException | TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Owner info worker {} failed to answer; replacing it", worker,
+                (e instanceof ExecutionException) ? e.getCause() : e);
+            roundTrip.event().complete("owner-info", worker.toString(), keys, 0);
+            roundTrip.answers().cancel(true);
+            worker.close();     // also unblocks the round trip if it hangs on reading the answers
+            worker = restartWorker();
+            return Map.of();
+        }
+        finally {
+            if (worker != null) {
+                idleWorkers.add(worker);
+            }
+        }
+    }
 
-            int result = process.waitFor();
-            log.info("Number of owner accounts in other services: {}", result);
+    private void cacheAccounts(Map<String, Integer> accounts) {
+        long expiresAt = System.nanoTime() + CACHED_ACCOUNTS_TTL_NANOS;
+        synchronized (accountsCache) {
+            accounts.forEach((telephone, count) -> {
+                accountsCache.remove(telephone);        // re-inserted in order to become the youngest entry
+                accountsCache.put(telephone, new CachedAccounts(count, expiresAt));
+            });
+        }
+    }
+
+    /**
+     * @return a new worker or {@code null} if it failed to start, in which case it is to be started again later
+     */
+    private Worker restartWorker() {
+        try {
+            return new Worker(processBuilder);
         }
         catch (IOException e) {
-            log.error("Failed to check owner info", e);
+            int missing = missingWorkers.incrementAndGet();
+            log.error("Failed to restart owner info worker; {} worker(s) missing until next lookup", missing, e);
+            return null;
         }
-        catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e);
+    }
+
+    private void restartMissingWorkers() {
+        for (int missing = missingWorkers.get(); missing > 0; missing = missingWorkers.get()) {
+            if (missingWorkers.compareAndSet(missing, missing - 1)) {
+                Worker worker = restartWorker();
+                if (worker == null) {
+                    return;     // no point in trying the rest right now
+                }
+                idleWorkers.add(worker);
+                log.info("Restarted missing owner info worker {}", worker);
+            }
         }
     }
 
     @PreDestroy
     void removeTempScriptFile() {
+        if (lookupExecutor != null) {
+            lookupExecutor.shutdownNow();
+        }
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.close();
+        }
+
         try {
             Files.deleteIfExists(scriptTempPath);
             log.debug("Removed temporary script file: {}", scriptTempPath);
@@ -99,4 +317,76 @@ public class OwnerInfoService {
             log.error("Failed to delete temporary file {}", scriptTempPath, e);
         }
     }
+
+    /**
+     * Number of owner accounts as cached at some moment
+     *
+     * @param expiresAt {@link System#nanoTime()} value after which the count must be looked up again
+     */
+    private record CachedAccounts(int count, long expiresAt) {
+    }
+
+    /**
+     * A batch of telephones being looked up by a worker
+     */
+    private record RoundTrip(Worker worker, List<String> telephones, ExternalLookupEvent event,
+                             Future<Map<String, Integer>> answers) {
+    }
+
+    /**
+     * A single long-living process of the external application. Not thread-safe, must be used by one thread at a
+     * time (which is guaranteed by {@link #idleWorkers} queue).
+     */
+    private static final class Worker implements Closeable {
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final BufferedReader stdout;
+
+        Worker(ProcessBuilder processBuilder) throws IOException {
+            this.process = processBuilder.start();
+            this.stdin = process.outputWriter();
+            this.stdout = process.inputReader();
+        }
+
+        Map<String, Integer> lookUp(List<String> telephones) throws IOException {
+            Map<String, Integer> accounts = new HashMap<>();
+            for (int from = 0; from < telephones.size(); from += MAX_ROUND_TRIP_SIZE) {
+                List<String> roundTrip = telephones.subList(from, Math.min(from + MAX_ROUND_TRIP_SIZE, telephones.size()));
+                for (String telephone : roundTrip) {
+                    stdin.write(telephone);
+                    stdin.newLine();
+                }
+                stdin.flush();
+
+                for (String telephone : roundTrip) {
+                    String answer = stdout.readLine();
+                    if (answer == null) {
+                        throw new EOFException("Worker process %d terminated unexpectedly".formatted(process.pid()));
+                    }
+                    int separatorIdx = answer.lastIndexOf(' ');
+                    if (separatorIdx < 0 || !answer.substring(0, separatorIdx).equals(telephone)) {
+                        throw new IOException("Unexpected answer '%s' for phone %s".formatted(answer, telephone));
+                    }
+                    accounts.put(telephone, Integer.parseInt(answer.substring(separatorIdx + 1).trim()));
+                }
+            }
+            return accounts;
+        }
+
+        @Override
+        public void close() {
+            try {
+                stdin.close();      // lets the process finish gracefully
+            }
+            catch (IOException e) {
+                log.trace("Failed to close stdin of worker process {}", process.pid(), e);
+            }
+            process.destroy();
+        }
+
+        @Override
+        public String toString() {
+            return "pid=" + process.pid();
+        }
+    }
 }
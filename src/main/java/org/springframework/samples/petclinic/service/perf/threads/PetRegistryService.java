@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.util.jfr.ExternalLookupEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
@@ -38,11 +39,21 @@ public class PetRegistryService {
     public boolean isPetRegistered(Pet pet) {
         log.trace("Querying registration status for pet {}", pet.getName());
 
-        return restClient.get()
-            .uri("/delay/{petId}", divideExact(pet.getId(), pet.getId()))
-            .retrieve()
-            .toBodilessEntity()
-            .getStatusCode()
-            .is2xxSuccessful();
+        ExternalLookupEvent event = new ExternalLookupEvent();
+        event.start();
+        boolean registered = false;
+        try {
+            registered = restClient.get()
+                .uri("/delay/{petId}", divideExact(pet.getId(), pet.getId()))
+                .retrieve()
+                .toBodilessEntity()
+                .getStatusCode()
+                .is2xxSuccessful();
+            return registered;
+        }
+        finally {
+            // a failed or negative lookup leaves the key unanswered
+            event.complete("pet-registry", "/delay/{petId}", 1, registered ? 1 : 0);
+        }
     }
 }
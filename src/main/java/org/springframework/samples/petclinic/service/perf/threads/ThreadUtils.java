@@ -8,7 +8,7 @@ import java.util.concurrent.Future;
  */
 public final class ThreadUtils {
 
-    public static String getTaskResult(Future<String> future) {
+    public static <T> T getTaskResult(Future<T> future) {
         try {
             return future.get();
         }
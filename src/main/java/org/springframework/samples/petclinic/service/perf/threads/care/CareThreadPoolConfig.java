@@ -1,13 +1,13 @@
 package org.springframework.samples.petclinic.service.perf.threads.care;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * A provider of thread pool for executing tasks related to care tips
+ * A provider of thread pool for executing tasks related to care tips. The pool is a work-stealing one so that
+ * owner tasks waiting for their pet sub-tasks don't block the workers but help to execute the sub-tasks instead.
  *
  * @author Vladimir Plizga
  */
@@ -15,8 +15,8 @@ import org.springframework.context.annotation.Configuration;
 public class CareThreadPoolConfig {
 
     @Bean
-    public ExecutorService careTipsThreadPool() {
-        int nThreads = Runtime.getRuntime().availableProcessors();
-        return Executors.newFixedThreadPool(nThreads);
+    public ForkJoinPool careTipsThreadPool() {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism);
     }
 }
@@ -1,7 +1,9 @@
 package org.springframework.samples.petclinic.service.perf.threads.care;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,14 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
-import org.springframework.samples.petclinic.service.perf.threads.ThreadUtils;
 import org.springframework.stereotype.Service;
 
-import static java.util.stream.Collectors.joining;
-
 /**
  * A service responsible for provision of pet care tips to their owners. <p/>
+ * Every owner's tips are logged as soon as they are composed, so the whole text is never kept in memory. <p/>
  * Used in sample case #3.
  *
  * @author Vladimir Plizga
@@ -28,29 +29,27 @@ public class CareTipsProvider {
     private static final Logger log = LoggerFactory.getLogger(CareTipsProvider.class);
 
     private final OwnerRepository ownerRepository;
-    private final ExecutorService careThreadPool;
+    private final ForkJoinPool careThreadPool;
 
     @Autowired
-    public CareTipsProvider(OwnerRepository ownerRepository, ExecutorService careThreadPool) {
+    public CareTipsProvider(OwnerRepository ownerRepository, ForkJoinPool careThreadPool) {
         this.ownerRepository = ownerRepository;
         this.careThreadPool = careThreadPool;
     }
 
     @EventListener(ApplicationReadyEvent.class)
-    public void composeCareTips() throws Exception {
-        List<OwnerCareTask> ownerCareTasks = ownerRepository.findAll()
-            .stream()
-            .map(owner -> new OwnerCareTask(owner, careThreadPool))
-            .toList();
+    public void composeCareTips() {
+        Collection<Owner> owners = ownerRepository.findAll();
 
-        log.debug("Proposing care tips for {} owners...", ownerCareTasks.size());
+        log.debug("Proposing care tips for {} owners...", owners.size());
+        log.info("General care tips from Spring PetClinic:");
 
-        String tipsText = careThreadPool.invokeAll(ownerCareTasks)
-            .stream()
-            .map(ThreadUtils::getTaskResult)
-            .collect(joining("\n\n", "General care tips from Spring PetClinic:\n", ""));
+        List<ForkJoinTask<Void>> ownerCareTasks = owners.stream()
+            .map(owner -> careThreadPool.submit(new OwnerCareTask(owner, log::info)))
+            .toList();
+        ownerCareTasks.forEach(ForkJoinTask::join);
 
-        log.info(tipsText);
+        log.debug("Care tips proposed for {} owners", ownerCareTasks.size());
     }
 
 }
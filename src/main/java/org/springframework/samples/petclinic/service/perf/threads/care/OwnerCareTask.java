@@ -1,47 +1,55 @@
 package org.springframework.samples.petclinic.service.perf.threads.care;
 
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.samples.petclinic.model.Owner;
-import org.springframework.samples.petclinic.service.perf.threads.ThreadUtils;
 
 import static java.util.stream.Collectors.joining;
 
 /**
+ * Composes care tips for all the pets of a single owner by forking a {@link PetCareTask} per pet. Joining the pet
+ * tasks doesn't block the worker thread as it either steals or runs the pending sub-tasks itself. <p/>
+ * The composed tips are handed over to the consumer and not kept as the task's result, so that the tasks of all the
+ * owners don't retain the whole text until they are joined.
  *
  * @author Vladimir Plizga
  */
-public class OwnerCareTask implements Callable<String> {
+public class OwnerCareTask extends RecursiveAction {
     private static final Logger log = LoggerFactory.getLogger(OwnerCareTask.class);
 
     private final Owner owner;
 
-    private final ExecutorService careThreadPool;
+    /**
+     * Receiver of the composed tips, called as soon as they are ready
+     */
+    private final Consumer<String> tipsConsumer;
 
-    public OwnerCareTask(Owner owner, ExecutorService careThreadPool) {
+    public OwnerCareTask(Owner owner, Consumer<String> tipsConsumer) {
         this.owner = owner;
-        this.careThreadPool = careThreadPool;
+        this.tipsConsumer = tipsConsumer;
     }
 
     @Override
-    public String call() throws Exception {
+    protected void compute() {
         List<PetCareTask> petCareTasks = owner.getPets().stream()
             .map(PetCareTask::new)
             .toList();
 
         log.debug("Proposing care tips for {} pet(s) of owner {}...", petCareTasks.size(), owner.getFirstName());
 
-        return careThreadPool.invokeAll(petCareTasks)
+        String tips = ForkJoinTask.invokeAll(petCareTasks)
             .stream()
-            .map(ThreadUtils::getTaskResult)
+            .map(ForkJoinTask::join)
             .collect(joining("\n\t- ",
                 "Dear %s, here is your pet care tip(s):\n\t- ".formatted(owner.getFirstName()),
                 ""));
+        tipsConsumer.accept(tips);
     }
 
 }
@@ -1,6 +1,6 @@
 package org.springframework.samples.petclinic.service.perf.threads.care;
 
-import java.util.concurrent.Callable;
+import java.util.concurrent.RecursiveTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,10 +8,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.samples.petclinic.model.Pet;
 
 /**
+ * Composes care tips for a single pet
  *
  * @author Vladimir Plizga
  */
-public class PetCareTask implements Callable<String> {
+public class PetCareTask extends RecursiveTask<String> {
     private static final Logger log = LoggerFactory.getLogger(PetCareTask.class);
 
     private final Pet pet;
@@ -21,7 +22,7 @@ public class PetCareTask implements Callable<String> {
     }
 
     @Override
-    public String call() {
+    protected String compute() {
         String name = pet.getName();
         log.trace("Composing care tips for pet '{}'...", name);
 
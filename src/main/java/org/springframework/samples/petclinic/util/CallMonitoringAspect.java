@@ -15,18 +15,37 @@
  */
 package org.springframework.samples.petclinic.util;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.distribution.TimeWindowMax;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.util.StopWatch;
+import org.springframework.stereotype.Component;
 
 /**
  * Simple aspect that monitors call count and call invocation time. It uses JMX annotations and therefore can be
  * monitored using any JMX console such as the jConsole
  * <p/>
+ * The calls are timed in nanoseconds and accounted per repository method in striped counters and latency histograms,
+ * so that concurrent calls never contend on a single monitor. Besides JMX, the per-method statistics are published to
+ * Micrometer as {@code petclinic.repository.calls} timers along with their percentiles and recent (decaying) maximums.
+ * <p/>
  * This is only useful if you use JPA or JDBC.  Spring-data-jpa doesn't have any correctly annotated classes to join on
  *
  * @author Rob Harrop
@@ -36,13 +55,26 @@ import org.springframework.util.StopWatch;
  */
 @ManagedResource("petclinic:type=CallMonitor")
 @Aspect
+@Component
+@ConditionalOnProperty("enable-call-monitoring")
 public class CallMonitoringAspect {
 
-    private boolean enabled = true;
+    private static final String METRIC_NAME = "petclinic.repository.calls";
+    private static final double[] PERCENTILES = {0.5, 0.99};
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Key: the intercepted method, value: statistics of all its overloads (which share the same metric tags)
+     */
+    private final Map<Method, MethodStats> statsByMethod = new ConcurrentHashMap<>();
+    private final Map<String, MethodStats> statsByName = new ConcurrentHashMap<>();
 
-    private int callCount = 0;
+    private volatile boolean enabled = true;
 
-    private long accumulatedCallTime = 0;
+    public CallMonitoringAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     @ManagedAttribute
     public boolean isEnabled() {
@@ -56,42 +88,226 @@ public class CallMonitoringAspect {
 
     @ManagedOperation
     public void reset() {
-        this.callCount = 0;
-        this.accumulatedCallTime = 0;
+        statsByName.values().forEach(MethodStats::reset);
     }
 
+    /**
+     * @return number of calls saturated at {@link Integer#MAX_VALUE}, see {@link #getTotalCallCount()}
+     */
     @ManagedAttribute
     public int getCallCount() {
-        return callCount;
+        return (int) Math.min(getTotalCallCount(), Integer.MAX_VALUE);
     }
 
+    /**
+     * @return average call time in whole milliseconds, see {@link #getAverageCallTime()}
+     */
     @ManagedAttribute
     public long getCallTime() {
-        if (this.callCount > 0)
-            return this.accumulatedCallTime / this.callCount;
-        else
+        return (long) getAverageCallTime();
+    }
+
+    @ManagedAttribute
+    public long getTotalCallCount() {
+        return statsByName.values().stream()
+            .mapToLong(MethodStats::count)
+            .sum();
+    }
+
+    /**
+     * @return average call time in milliseconds (with a fractional part for sub-millisecond calls)
+     */
+    @ManagedAttribute
+    public double getAverageCallTime() {
+        long callCount = getTotalCallCount();
+        if (callCount == 0) {
             return 0;
+        }
+        long accumulatedCallTime = statsByName.values().stream()
+            .mapToLong(MethodStats::totalNanos)
+            .sum();
+        return (double) accumulatedCallTime / callCount / TimeUnit.MILLISECONDS.toNanos(1);
     }
 
+    /**
+     * @return per-method call counts and latencies (in microseconds)
+     */
+    @ManagedAttribute
+    public String[] getMethodStatistics() {
+        return statsByName.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(entry -> "%s: count=%d, p50=%.1f, p99=%.1f, max=%.1f".formatted(
+                entry.getKey(),
+                entry.getValue().count(),
+                entry.getValue().percentile(0.5) / 1000.0,
+                entry.getValue().percentile(0.99) / 1000.0,
+                entry.getValue().max() / 1000.0))
+            .toArray(String[]::new);
+    }
 
     @Around("within(@org.springframework.stereotype.Repository *)")
     public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
         if (this.enabled) {
-            StopWatch sw = new StopWatch(joinPoint.toShortString());
-
-            sw.start("invoke");
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            long start = System.nanoTime();
             try {
                 return joinPoint.proceed();
             } finally {
-                sw.stop();
-                synchronized (this) {
-                    this.callCount++;
-                    this.accumulatedCallTime += sw.getTotalTimeMillis();
-                }
+                record(method, System.nanoTime() - start);
             }
         } else {
             return joinPoint.proceed();
         }
     }
 
+    void record(Method method, long elapsedNanos) {
+        MethodStats stats = statsByMethod.get(method);
+        if (stats == null) {
+            stats = statsByMethod.computeIfAbsent(method,
+                m -> statsByName.computeIfAbsent(m.getDeclaringClass().getSimpleName() + "." + m.getName(),
+                    this::registerStats));
+        }
+        stats.record(elapsedNanos);
+    }
+
+    private MethodStats registerStats(String methodName) {
+        MethodStats stats = new MethodStats(meterRegistry.config().clock());
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.repository.calls
+        FunctionTimer.builder(METRIC_NAME, stats, MethodStats::count, MethodStats::totalNanos, TimeUnit.NANOSECONDS)
+            .tag("method", methodName)
+            .description("Calls of repository methods")
+            .register(meterRegistry);
+        for (double percentile : PERCENTILES) {
+            // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.repository.calls.percentile
+            TimeGauge.builder(METRIC_NAME + ".percentile", stats, TimeUnit.NANOSECONDS, s -> s.percentile(percentile))
+                .tags("method", methodName, "phi", String.valueOf(percentile))
+                .register(meterRegistry);
+        }
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.repository.calls.max
+        TimeGauge.builder(METRIC_NAME + ".max", stats, TimeUnit.NANOSECONDS, MethodStats::recentMax)
+            .tag("method", methodName)
+            .register(meterRegistry);
+        return stats;
+    }
+
+    /**
+     * Call statistics of a single method. Latencies are counted in log-linear buckets: every power of two is split into
+     * {@value #SUB_BUCKETS} equal sub-buckets, so a percentile is off by no more than ~3% from the actual value.
+     * Bucket counters are spread over per-thread stripes; recording is wait-free while reading sums the stripes up.
+     * Besides the maximum since the last reset, a recent one is kept that decays like those of Micrometer timers.
+     */
+    private static final class MethodStats {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        /**
+         * Calls longer than 2^40 ns (~18 minutes) are all counted in the last bucket
+         */
+        private static final int MAX_EXPONENT = 40;
+        private static final int BUCKETS_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+        private static final int STRIPES_COUNT =        // a power of two
+            Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
+        private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES_COUNT];
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final TimeWindowMax recentMaxNanos;
+
+        MethodStats(Clock clock) {
+            // 2 minutes in 3 rotating windows, the defaults of Micrometer distributions
+            recentMaxNanos = new TimeWindowMax(clock, TimeUnit.MINUTES.toMillis(2), 3);
+            for (int i = 0; i < STRIPES_COUNT; i++) {
+                stripes[i] = new AtomicLongArray(BUCKETS_COUNT);
+            }
+        }
+
+        void record(long elapsedNanos) {
+            int stripe = (int) Thread.currentThread().threadId() & (STRIPES_COUNT - 1);
+            stripes[stripe].getAndIncrement(bucketOf(elapsedNanos));
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            recentMaxNanos.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        long count() {
+            long count = 0;
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < BUCKETS_COUNT; i++) {
+                    count += stripe.get(i);
+                }
+            }
+            return count;
+        }
+
+        long totalNanos() {
+            return totalNanos.sum();
+        }
+
+        long max() {
+            return maxNanos.get();
+        }
+
+        /**
+         * @return the maximum of the last few minutes
+         */
+        double recentMax() {
+            return recentMaxNanos.poll(TimeUnit.NANOSECONDS);
+        }
+
+        long percentile(double percentile) {
+            long[] buckets = new long[BUCKETS_COUNT];
+            long count = 0;
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < BUCKETS_COUNT; i++) {
+                    long bucketCount = stripe.get(i);
+                    buckets[i] += bucketCount;
+                    count += bucketCount;
+                }
+            }
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(middleOf(i), max());
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < BUCKETS_COUNT; i++) {
+                    stripe.set(i, 0);
+                }
+            }
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+
+        /**
+         * Values below {@link #SUB_BUCKETS} get a bucket each, greater ones share a bucket with their neighbors
+         * having the same exponent and the same {@link #SUB_BUCKET_BITS} highest bits.
+         */
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(value, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent > MAX_EXPONENT) {
+                return BUCKETS_COUNT - 1;
+            }
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long middleOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucketWidth = 1L << (exponent - SUB_BUCKET_BITS);
+            long lowerBound = (SUB_BUCKETS + bucket % SUB_BUCKETS) * subBucketWidth;
+            return lowerBound + subBucketWidth / 2;
+        }
+    }
 }
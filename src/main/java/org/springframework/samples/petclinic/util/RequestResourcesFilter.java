@@ -0,0 +1,140 @@
+package org.springframework.samples.petclinic.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Accounts the heap bytes allocated and the CPU time consumed by every HTTP request and publishes them per route
+ * (HTTP method and URI pattern) as Micrometer histograms. <p/>
+ * The accounting takes two reads of each of the thread's counters per request (about a microsecond in total) and a
+ * lookup of the route's cached meters, so it is cheap enough to be left on in production. Only the thread
+ * serving the request is accounted: the work it offloads to other threads (e.g. parallel streams or executors) is
+ * attributed to those threads, not to the request. <p/>
+ * Requests with non-standard HTTP methods and the routes beyond {@link #MAX_CACHED_ROUTES} are all accounted to the
+ * shared {@code other} route, so that clients can't make the number of published meters grow without bounds.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@ConditionalOnProperty("enable-request-accounting")
+public class RequestResourcesFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RequestResourcesFilter.class);
+
+    /**
+     * Upper bound of distinct routes to cache the meters for
+     */
+    private static final int MAX_CACHED_ROUTES = 1_000;
+    /**
+     * Route of the requests with non-standard methods and of the routes beyond {@link #MAX_CACHED_ROUTES}
+     */
+    private static final Route OTHER_ROUTE = new Route("other", "other");
+
+    private static final Set<String> STANDARD_METHODS =
+        Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final boolean isAllocationSupported;
+    private final boolean isCpuTimeSupported;
+
+    private final Map<Route, RouteMeters> metersByRoute = new ConcurrentHashMap<>();
+    private final RouteMeters otherMeters;
+
+    public RequestResourcesFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.isAllocationSupported = threadMXBean.isThreadAllocatedMemorySupported()
+            && threadMXBean.isThreadAllocatedMemoryEnabled();
+        this.isCpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported()
+            && threadMXBean.isThreadCpuTimeEnabled();
+        this.otherMeters = new RouteMeters(OTHER_ROUTE);
+        log.debug("Request accounting is enabled (allocations: {}, CPU time: {})",
+            isAllocationSupported, isCpuTimeSupported);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        long allocatedBefore = isAllocationSupported ? threadMXBean.getCurrentThreadAllocatedBytes() : 0;
+        long cpuTimeBefore = isCpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0;
+        try {
+            filterChain.doFilter(request, response);
+        }
+        finally {
+            long cpuTime = isCpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() - cpuTimeBefore : 0;
+            long allocated = isAllocationSupported ? threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore : 0;
+
+            Object uriPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = (uriPattern != null) ? uriPattern.toString() : "UNKNOWN";
+            RouteMeters meters = metersOf(new Route(request.getMethod(), uri));
+            if (isAllocationSupported) {
+                meters.allocated.record(allocated);
+            }
+            if (isCpuTimeSupported) {
+                meters.cpuTime.record(cpuTime, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private RouteMeters metersOf(Route route) {
+        if (!STANDARD_METHODS.contains(route.method())) {
+            return otherMeters;
+        }
+        RouteMeters meters = metersByRoute.get(route);
+        if (meters != null) {
+            return meters;
+        }
+        if (metersByRoute.size() >= MAX_CACHED_ROUTES) {
+            return otherMeters;
+        }
+        return metersByRoute.computeIfAbsent(route, RouteMeters::new);
+    }
+
+    private record Route(String method, String uri) {
+    }
+
+    private class RouteMeters {
+        final DistributionSummary allocated;
+        final Timer cpuTime;
+
+        RouteMeters(Route route) {
+            // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.http.requests.allocated
+            allocated = DistributionSummary.builder("petclinic.http.requests.allocated")
+                .description("Heap bytes allocated by the thread serving an HTTP request")
+                .baseUnit("bytes")
+                .tags("method", route.method(), "uri", route.uri())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1024.0)
+                .maximumExpectedValue(1024.0 * 1024 * 1024)
+                .register(meterRegistry);
+            // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.http.requests.cpu
+            cpuTime = Timer.builder("petclinic.http.requests.cpu")
+                .description("CPU time consumed by the thread serving an HTTP request")
+                .tags("method", route.method(), "uri", route.uri())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Outcome of an application cache lookup, either of a single key or of a batch. Unlike the other events, this one is
+ * instant: the lookup itself is too short to be worth timing, while the misses are timed by the events of the
+ * operations computing the missing values.
+ *
+ * @author Vladimir Plizga
+ */
+@Name("petclinic.CacheAccess")
+@Label("Cache Access")
+@Category({"PetClinic", "Cache"})
+public final class CacheAccessEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Hits")
+    int hits;
+
+    @Label("Misses")
+    int misses;
+
+    public static void record(String cache, int hits, int misses) {
+        CacheAccessEvent event = new CacheAccessEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.hits = hits;
+            event.misses = misses;
+            event.commit();
+        }
+    }
+
+    public static void record(String cache, boolean hit) {
+        record(cache, hit ? 1 : 0, hit ? 0 : 1);
+    }
+}
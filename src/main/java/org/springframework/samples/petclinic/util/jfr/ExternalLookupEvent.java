@@ -0,0 +1,41 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A round trip to an external service or application
+ *
+ * @author Vladimir Plizga
+ */
+@Name("petclinic.ExternalLookup")
+@Label("External Lookup")
+@Category({"PetClinic", "Integration"})
+@Description("A lookup of a batch of keys in an external service; unanswered keys denote failures")
+public final class ExternalLookupEvent extends OperationEvent {
+
+    @Label("Service")
+    String service;
+
+    @Label("Target")
+    @Description("The requested resource or the worker which served the lookup")
+    String target;
+
+    @Label("Keys")
+    int keys;
+
+    @Label("Answered")
+    int answered;
+
+    public void complete(String service, String target, int keys, int answered) {
+        if (finish()) {
+            this.service = service;
+            this.target = target;
+            this.keys = keys;
+            this.answered = answered;
+            commit();
+        }
+    }
+}
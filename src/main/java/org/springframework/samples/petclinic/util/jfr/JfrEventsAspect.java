@@ -0,0 +1,84 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits {@link RepositoryCallEvent}s for the calls of the repositories (of any of the persistence profiles, as they all
+ * implement the same interfaces) and {@link MappingBatchEvent}s for the collections converted by MapStruct mappers.
+ * The events are only filled in and committed while a recording with them enabled is running, e.g. the one started
+ * with {@code petclinic.jfc} settings. A call ending with an exception is recorded as well, as returning nothing.
+ *
+ * @author Vladimir Plizga
+ */
+@Aspect
+@Component
+@ConditionalOnProperty("enable-jfr-events")
+public class JfrEventsAspect {
+
+    @Around("execution(* org.springframework.samples.petclinic.repository.*Repository.*(..))")
+    public Object recordRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.start();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        }
+        finally {
+            // a failed call is recorded too, with no rows
+            if (event.finish()) {
+                MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+                event.repository = signature.getDeclaringType().getSimpleName();
+                event.method = signature.getName();
+                event.rows = countRows(result);
+                event.commit();
+            }
+        }
+    }
+
+    @Around("execution(java.util.Collection+ org.springframework.samples.petclinic.mapper.*Mapper.*(java.util.Collection))")
+    public Object recordMappingBatch(ProceedingJoinPoint joinPoint) throws Throwable {
+        MappingBatchEvent event = new MappingBatchEvent();
+        event.start();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        }
+        finally {
+            // a failed call is recorded too, with no size
+            if (event.finish()) {
+                MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+                event.mapper = signature.getDeclaringType().getSimpleName();
+                event.method = signature.getName();
+                event.size = countRows(result);
+                event.commit();
+            }
+        }
+    }
+
+    private static int countRows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,201 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Actuator endpoint taking time-boxed JFR recordings of the running application, so that a slow node can be diagnosed
+ * without shell access to it:
+ * <ul>
+ *     <li>{@code POST http://localhost:9966/petclinic/actuator/jfr} with optional {@code duration} (in seconds) and
+ *     {@code settings} parameters records the application, writes the recording to {@code jfr-dumps-dir} and answers
+ *     with its {@link RecordingSummary summary};</li>
+ *     <li>{@code GET http://localhost:9966/petclinic/actuator/jfr} lists the kept recordings;</li>
+ *     <li>{@code GET http://localhost:9966/petclinic/actuator/jfr/{name}} summarizes one of them.</li>
+ * </ul>
+ * The settings are either a JDK configuration ({@code default} or {@code profile}) or a {@code .jfc} file from the
+ * working directory, e.g. {@code allocation.jfc} or {@code petclinic.jfc}. Whatever the settings are, the events
+ * needed for the summary (execution and allocation samples, monitor enters and thread parks) are enabled. <p/>
+ * Only one recording runs at a time; its size on disk is capped by {@code jfr-max-size} and only the last
+ * {@code jfr-dumps-retention} recordings are kept.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@Endpoint(id = "jfr")
+@ConditionalOnProperty("enable-jfr-endpoint")
+public class JfrRecordingEndpoint {
+    private static final Logger log = LoggerFactory.getLogger(JfrRecordingEndpoint.class);
+
+    private static final String FILE_PREFIX = "recording-";
+    private static final String FILE_SUFFIX = ".jfr";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final int DEFAULT_DURATION_SECONDS = 30;
+    private static final String DEFAULT_SETTINGS = "profile";
+    private static final int TOP_COUNT = 20;
+
+    /**
+     * Settings enabled on top of any configuration as the summary is built upon these events
+     */
+    private static final Map<String, String> SUMMARY_SETTINGS = Map.of(
+        "jdk.ExecutionSample#enabled", "true",
+        "jdk.ExecutionSample#period", "10 ms",
+        "jdk.ObjectAllocationSample#enabled", "true",
+        "jdk.ObjectAllocationSample#stackTrace", "true",
+        "jdk.JavaMonitorEnter#enabled", "true",
+        "jdk.JavaMonitorEnter#stackTrace", "true",
+        "jdk.ThreadPark#enabled", "true",
+        "jdk.ThreadPark#stackTrace", "true");
+
+    private final Path dumpsDir;
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private final int retention;
+
+    private final Lock recordingLock = new ReentrantLock();
+
+    public JfrRecordingEndpoint(@Value("${jfr-dumps-dir:dumps}") Path dumpsDir,
+                                @Value("${jfr-max-duration:300s}") Duration maxDuration,
+                                @Value("${jfr-max-size:100MB}") DataSize maxSize,
+                                @Value("${jfr-dumps-retention:5}") int retention) {
+        this.dumpsDir = dumpsDir;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.retention = retention;
+    }
+
+    @WriteOperation
+    public RecordingSummary record(@Nullable Integer duration, @Nullable String settings) throws IOException {
+        Duration recordingDuration = Duration.ofSeconds((duration != null) ? duration : DEFAULT_DURATION_SECONDS);
+        if (recordingDuration.isNegative() || recordingDuration.isZero() || recordingDuration.compareTo(maxDuration) > 0) {
+            throw new InvalidEndpointRequestException("Duration must be within (0, %d] seconds"
+                .formatted(maxDuration.toSeconds()), "Invalid duration");
+        }
+        String settingsName = (settings != null) ? settings : DEFAULT_SETTINGS;
+        Map<String, String> recordingSettings = loadSettings(settingsName);
+
+        if (!recordingLock.tryLock()) {
+            throw new InvalidEndpointRequestException("Another recording is in progress", "Recording in progress");
+        }
+        try {
+            Files.createDirectories(dumpsDir);
+            Path file = dumpsDir.resolve(FILE_PREFIX + LocalDateTime.now().format(FILE_TIMESTAMP) + FILE_SUFFIX);
+            try (Recording recording = new Recording(recordingSettings)) {
+                recording.setName("petclinic-on-demand");
+                recording.setMaxSize(maxSize.toBytes());
+                recording.setDestination(file);
+                log.info("Recording JFR for {} with '{}' settings to {}", recordingDuration, settingsName, file);
+                recording.start();
+                Thread.sleep(recordingDuration);
+                recording.stop();       // writes the recording to the destination
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            removeOutdatedRecordings();
+            return RecordingSummary.of(file, TOP_COUNT);
+        }
+        finally {
+            recordingLock.unlock();
+        }
+    }
+
+    /**
+     * @return names of the kept recordings, the latest first
+     */
+    @ReadOperation
+    public List<String> recordings() throws IOException {
+        return listRecordings()
+            .map(path -> path.getFileName().toString())
+            .toList();
+    }
+
+    @ReadOperation
+    public RecordingSummary summary(@Selector String name) throws IOException {
+        Path file = dumpsDir.resolve(name).normalize();
+        if (!file.getParent().equals(dumpsDir.normalize()) || !name.startsWith(FILE_PREFIX) || !Files.isRegularFile(file)) {
+            return null;        // answered with 404
+        }
+        return RecordingSummary.of(file, TOP_COUNT);
+    }
+
+    private Map<String, String> loadSettings(String settings) {
+        try {
+            Configuration configuration;
+            if (settings.endsWith(".jfc")) {
+                Path settingsFile = Path.of(settings);
+                if (settingsFile.getNameCount() != 1 || !Files.isRegularFile(settingsFile)) {
+                    throw new InvalidEndpointRequestException("No settings file '%s' in the working directory"
+                        .formatted(settings), "Unknown settings");
+                }
+                configuration = Configuration.create(settingsFile);
+            }
+            else {
+                configuration = Configuration.getConfiguration(settings);
+            }
+            Map<String, String> recordingSettings = new HashMap<>(configuration.getSettings());
+            recordingSettings.putAll(SUMMARY_SETTINGS);
+            return recordingSettings;
+        }
+        catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Failed to load settings '%s': %s"
+                .formatted(settings, e.getMessage()), "Invalid settings");
+        }
+    }
+
+    private void removeOutdatedRecordings() throws IOException {
+        List<Path> outdated = listRecordings()
+            .skip(retention)
+            .toList();
+        for (Path path : outdated) {
+            Files.deleteIfExists(path);
+            log.debug("Removed outdated JFR recording {}", path);
+        }
+    }
+
+    private Stream<Path> listRecordings() throws IOException {
+        if (!Files.isDirectory(dumpsDir)) {
+            return Stream.empty();
+        }
+        try (Stream<Path> files = Files.list(dumpsDir)) {
+            return files
+                .filter(path -> {
+                    String fileName = path.getFileName().toString();
+                    return fileName.startsWith(FILE_PREFIX) && fileName.endsWith(FILE_SUFFIX);
+                })
+                .sorted(Comparator.comparing(Path::getFileName).reversed())
+                .toList()
+                .stream();
+        }
+    }
+}
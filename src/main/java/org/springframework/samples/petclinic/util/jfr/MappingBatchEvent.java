@@ -0,0 +1,28 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Mapping of a collection by a MapStruct mapper, emitted by {@link JfrEventsAspect}
+ *
+ * @author Vladimir Plizga
+ */
+@Name("petclinic.MappingBatch")
+@Label("Mapping Batch")
+@Category({"PetClinic", "Mapping"})
+@Description("Conversion of a collection of entities or DTOs by a MapStruct mapper")
+final class MappingBatchEvent extends OperationEvent {
+
+    @Label("Mapper")
+    String mapper;
+
+    @Label("Method")
+    String method;
+
+    @Label("Size")
+    @Description("Number of the mapped elements")
+    int size;
+}
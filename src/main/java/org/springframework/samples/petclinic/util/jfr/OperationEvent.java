@@ -0,0 +1,51 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+
+/**
+ * Base of the duration events that besides the latency also account the heap bytes allocated by the operation. <p/>
+ * Usage: {@link #start()} the event before the operation and, once {@link #finish()} confirms the event is to be
+ * recorded, fill in the event-specific fields and {@link #commit()} it. Without a recording the event costs an
+ * allocation (usually scalar-replaced) and a couple of checks, the fields are not even computed.
+ * <p/>
+ * Only the thread running the operation is accounted, i.e. the work offloaded to other threads (e.g. parallel streams)
+ * is not included into {@link #allocated}.
+ *
+ * @author Vladimir Plizga
+ */
+abstract class OperationEvent extends jdk.jfr.Event {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Holds the thread's allocation counter between {@link #start()} and {@link #finish()}, the difference afterwards
+     */
+    @Label("Allocated")
+    @Description("Heap bytes allocated by the thread during the operation")
+    @DataAmount
+    long allocated;
+
+    public final void start() {
+        if (isEnabled()) {
+            allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+            begin();
+        }
+    }
+
+    /**
+     * @return {@code true} if the event should be committed (i.e. it is enabled and exceeds the threshold)
+     */
+    public final boolean finish() {
+        end();
+        if (shouldCommit()) {
+            allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocated;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A single stage of the pet list post-processing
+ *
+ * @author Vladimir Plizga
+ */
+@Name("petclinic.PetListStage")
+@Label("Pet List Stage")
+@Category({"PetClinic", "Processing"})
+public final class PetListStageEvent extends OperationEvent {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Pets")
+    int pets;
+
+    public void complete(String stage, int pets) {
+        if (finish()) {
+            this.stage = stage;
+            this.pets = pets;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Condensed view of a JFR recording: the hottest methods by execution samples, the sites allocating the most (by the
+ * weight of allocation samples) and the most contended monitors and parked-on objects along with the sites blocking on
+ * them. Pool threads parked while waiting for work are idle rather than contended, so they are left out. The recording
+ * is read event by event, so only the aggregates are kept in memory regardless of the recording size.
+ *
+ * @author Vladimir Plizga
+ */
+public record RecordingSummary(String file,
+                               long sizeBytes,
+                               Instant startTime,
+                               Duration duration,
+                               long eventsCount,
+                               long executionSamples,
+                               List<Entry> topCpuFrames,
+                               List<Entry> topAllocationSites,
+                               List<Entry> lockContention) {
+
+    /**
+     * Methods in which pool threads park while waiting for work
+     */
+    private static final Set<String> IDLE_WAIT_METHODS = Set.of(
+        "java.util.concurrent.ThreadPoolExecutor.getTask",
+        "org.apache.tomcat.util.threads.ThreadPoolExecutor.getTask",
+        "java.util.concurrent.ForkJoinPool.awaitWork",
+        "java.lang.ref.ReferenceQueue.remove");
+
+    /**
+     * @param frame  a method (with the line number) for CPU frames, a class along with the method allocating it or
+     *               blocking on it for the other sections
+     * @param count  number of events attributed to the frame
+     * @param weight samples count for CPU frames, allocated bytes for allocation sites, blocked nanoseconds for
+     *               contention
+     */
+    public record Entry(String frame, long count, long weight) {
+    }
+
+    static RecordingSummary of(Path recordingFile, int topCount) throws IOException {
+        Map<String, Entry> cpuFrames = new HashMap<>();
+        Map<String, Entry> allocationSites = new HashMap<>();
+        Map<String, Entry> contention = new HashMap<>();
+        long eventsCount = 0;
+        long executionSamples = 0;
+        Instant startTime = null;
+        Instant endTime = null;
+
+        try (RecordingFile recording = new RecordingFile(recordingFile)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                eventsCount++;
+                if (startTime == null || event.getStartTime().isBefore(startTime)) {
+                    startTime = event.getStartTime();
+                }
+                if (endTime == null || event.getEndTime().isAfter(endTime)) {
+                    endTime = event.getEndTime();
+                }
+
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> {
+                        executionSamples++;
+                        accumulate(cpuFrames, topFrame(event.getStackTrace()), 1);
+                    }
+                    case "jdk.ObjectAllocationSample" -> accumulate(allocationSites,
+                        className(event.getClass("objectClass")) + " at " + topFrame(event.getStackTrace()),
+                        event.getLong("weight"));
+                    case "jdk.JavaMonitorEnter" -> accumulate(contention,
+                        "monitor " + className(event.getClass("monitorClass")) + " at "
+                            + blockingSite(event.getStackTrace()),
+                        event.getDuration().toNanos());
+                    case "jdk.ThreadPark" -> {
+                        if (!isIdleWait(event.getStackTrace())) {
+                            accumulate(contention,
+                                "park " + className(event.getClass("parkedClass")) + " at "
+                                    + blockingSite(event.getStackTrace()),
+                                event.getDuration().toNanos());
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        return new RecordingSummary(
+            recordingFile.getFileName().toString(),
+            Files.size(recordingFile),
+            startTime,
+            (startTime != null) ? Duration.between(startTime, endTime) : Duration.ZERO,
+            eventsCount,
+            executionSamples,
+            top(cpuFrames, topCount, Entry::count),
+            top(allocationSites, topCount, Entry::weight),
+            top(contention, topCount, Entry::weight));
+    }
+
+    private static void accumulate(Map<String, Entry> entries, String frame, long weight) {
+        entries.merge(frame, new Entry(frame, 1, weight),
+            (a, b) -> new Entry(frame, a.count() + b.count(), a.weight() + b.weight()));
+    }
+
+    private static List<Entry> top(Map<String, Entry> entries, int topCount, ToLongFunction<Entry> rank) {
+        return entries.values().stream()
+            .sorted(Comparator.comparingLong(rank).reversed())
+            .limit(topCount)
+            .toList();
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<no stack trace>";
+        }
+        return frameName(stackTrace.getFrames().get(0));
+    }
+
+    /**
+     * @return the first frame outside the JDK concurrency internals, i.e. the code that took the lock or waited for
+     * the condition, or the top frame if there is no such one
+     */
+    private static String blockingSite(RecordedStackTrace stackTrace) {
+        if (stackTrace != null) {
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                String className = frame.getMethod().getType().getName();
+                if (!className.startsWith("java.util.concurrent.") && !className.startsWith("jdk.internal.")) {
+                    return frameName(frame);
+                }
+            }
+        }
+        return topFrame(stackTrace);
+    }
+
+    private static boolean isIdleWait(RecordedStackTrace stackTrace) {
+        return stackTrace != null && stackTrace.getFrames().stream()
+            .anyMatch(frame -> IDLE_WAIT_METHODS.contains(
+                frame.getMethod().getType().getName() + "." + frame.getMethod().getName()));
+    }
+
+    private static String frameName(RecordedFrame frame) {
+        return "%s.%s:%d".formatted(
+            frame.getMethod().getType().getName(), frame.getMethod().getName(), frame.getLineNumber());
+    }
+
+    /**
+     * @return the class name in the source code form, e.g. {@code long[]} rather than {@code [J}
+     */
+    private static String className(RecordedClass recordedClass) {
+        if (recordedClass == null) {
+            return "<unknown>";
+        }
+        String name = recordedClass.getName();
+        int dimensions = 0;
+        while (name.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions == 0) {
+            return name;
+        }
+        String elementType = switch (name.charAt(dimensions)) {
+            case 'Z' -> "boolean";
+            case 'B' -> "byte";
+            case 'C' -> "char";
+            case 'S' -> "short";
+            case 'I' -> "int";
+            case 'J' -> "long";
+            case 'F' -> "float";
+            case 'D' -> "double";
+            default -> name.substring(dimensions + 1, name.length() - 1);     // L<class name>;
+        };
+        return elementType + "[]".repeat(dimensions);
+    }
+}
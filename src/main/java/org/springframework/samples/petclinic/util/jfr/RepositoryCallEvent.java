@@ -0,0 +1,28 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A call of a repository method, emitted by {@link JfrEventsAspect}
+ *
+ * @author Vladimir Plizga
+ */
+@Name("petclinic.RepositoryCall")
+@Label("Repository Call")
+@Category({"PetClinic", "Data Access"})
+@Description("A call of a repository method along with the number of rows (entities) it returned")
+final class RepositoryCallEvent extends OperationEvent {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Rows")
+    @Description("Size of the returned collection, 1 for a single entity or 0 if nothing was returned (or the call failed)")
+    int rows;
+}
@@ -0,0 +1,73 @@
+package org.springframework.samples.petclinic.util.seed;
+
+import java.util.SplittableRandom;
+
+/**
+ * Distributions of the numbers of pets per owner and visits per pet in a synthetic clinic, all over
+ * {@code 0, 1, 2...} with the given mean
+ *
+ * @author Vladimir Plizga
+ */
+enum CountDistribution {
+
+    /**
+     * Every owner (or pet) gets the mean, rounded up or down at random to keep fractional means exact
+     */
+    FIXED {
+        @Override
+        int sample(SplittableRandom random, double mean) {
+            int whole = (int) mean;
+            return whole + ((random.nextDouble() < mean - whole) ? 1 : 0);
+        }
+    },
+
+    /**
+     * Any count from 0 to twice the mean is equally likely; a fractional upper bound is rounded up or down at random,
+     * the way {@link #FIXED} does, to keep fractional means exact
+     */
+    UNIFORM {
+        @Override
+        int sample(SplittableRandom random, double mean) {
+            return random.nextInt(FIXED.sample(random, 2 * mean) + 1);
+        }
+    },
+
+    /**
+     * Counts cluster around the mean, as if the events happened independently at a constant rate
+     */
+    POISSON {
+        @Override
+        int sample(SplittableRandom random, double mean) {
+            // Knuth's multiplication method, fine for the small means at hand
+            double limit = Math.exp(-mean);
+            double product = random.nextDouble();
+            int count = 0;
+            while (product > limit) {
+                product *= random.nextDouble();
+                count++;
+            }
+            return count;
+        }
+    },
+
+    /**
+     * Small counts are the most common while large ones still occur, the way most owners have a single pet and
+     * a few have a whole menagerie
+     */
+    GEOMETRIC {
+        @Override
+        int sample(SplittableRandom random, double mean) {
+            double p = 1 / (mean + 1);
+            return (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+        }
+    };
+
+    /**
+     * @param mean expected value of the samples, non-negative
+     */
+    int next(SplittableRandom random, double mean) {
+        return (mean <= 0) ? 0 : sample(random, mean);
+    }
+
+    abstract int sample(SplittableRandom random, double mean);
+}
@@ -0,0 +1,211 @@
+package org.springframework.samples.petclinic.util.seed;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import net.datafaker.Faker;
+
+/**
+ * Generates a deterministic synthetic clinic: owners with their pets and visits, and vets with their specialties.
+ * The same seed and sizes always produce the same rows. <p/>
+ * The data is skewed the way real data is: last names, cities, pet types, visit reasons and specialties are drawn
+ * from Zipf distributions (a few values are very common, most are rare), while the numbers of pets per owner and
+ * visits per pet follow the {@link CountDistribution chosen} distributions. <p/>
+ * Text values are drawn from dictionaries built by {@link Faker} once per generator, as calling it per row would take
+ * microseconds each. Every owner (and vet) gets its own random generators derived from the seed and the owner's index,
+ * so the rows of an owner don't depend on the order (or the thread) the owners are generated in. The numbers of pets
+ * and visits are drawn from a generator of their own, which lets {@link #countOwners} compute the sizes of a range
+ * of owners without generating the rows. A generator is safe to use from multiple threads.
+ *
+ * @author Vladimir Plizga
+ */
+class SyntheticDataGenerator {
+
+    /**
+     * Visit dates are counted back from this date rather than from today to keep the data reproducible
+     */
+    static final LocalDate REFERENCE_DATE = LocalDate.of(2025, 1, 1);
+
+    private static final int MAX_PET_AGE_DAYS = 20 * 365;
+    private static final int MAX_SPECIALTIES_PER_VET = 3;
+
+    private final SyntheticDataset dataset;
+
+    private final String[] firstNames;
+    private final String[] lastNames;
+    private final String[] streets;
+    private final String[] cities;
+    private final String[] petNames;
+    private final String[] visitReasons;
+
+    private final ZipfSampler lastNameSampler;
+    private final ZipfSampler citySampler;
+    private final ZipfSampler visitReasonSampler;
+
+    SyntheticDataGenerator(SyntheticDataset dataset) {
+        this.dataset = dataset;
+        Faker faker = new Faker(new Random(dataset.seed()));
+        this.firstNames = dictionary(500, () -> faker.name().firstName(), 30);
+        this.lastNames = dictionary(2_000, () -> faker.name().lastName(), 30);
+        this.streets = dictionary(1_000, () -> faker.address().streetName(), 200);
+        this.cities = dictionary(200, () -> faker.address().city(), 80);
+        this.petNames = dictionary(500, () -> faker.dog().name(), 30);
+        this.visitReasons = dictionary(100, () -> faker.medical().symptoms(), 255);
+
+        this.lastNameSampler = new ZipfSampler(lastNames.length, 1.0);
+        this.citySampler = new ZipfSampler(cities.length, 1.2);
+        this.visitReasonSampler = new ZipfSampler(visitReasons.length, 1.0);
+    }
+
+    /**
+     * Generates the owners {@code [fromOwner, toOwner)} (zero-based indices) along with their pets and visits
+     *
+     * @param typeIds ids of the pet types to choose from, the most common type first
+     */
+    void generateOwners(int fromOwner, int toOwner, int[] typeIds, RowSink sink) {
+        ZipfSampler typeSampler = new ZipfSampler(typeIds.length, 1.5);
+        for (int ownerIndex = fromOwner; ownerIndex < toOwner; ownerIndex++) {
+            SplittableRandom shape = randomOf(ownerIndex);
+            SplittableRandom random = shape.split();
+            String lastName = lastNames[lastNameSampler.sample(random)];
+            sink.owner(ownerIndex,
+                firstNames[random.nextInt(firstNames.length)],
+                lastName,
+                // concatenations rather than String.format(), as the latter takes microseconds
+                (1 + random.nextInt(9_999)) + " " + streets[random.nextInt(streets.length)],
+                cities[citySampler.sample(random)],
+                Long.toString(random.nextLong(1_000_000_000L, 10_000_000_000L)));
+
+            int petsCount = nextPetsCount(shape);
+            for (int p = 0; p < petsCount; p++) {
+                LocalDate birthDate = REFERENCE_DATE.minusDays(1 + random.nextInt(MAX_PET_AGE_DAYS));
+                int petIndex = sink.pet(ownerIndex, petNames[random.nextInt(petNames.length)], birthDate,
+                    typeIds[typeSampler.sample(random)]);
+
+                int visitsCount = nextVisitsCount(shape);
+                long ageDays = REFERENCE_DATE.toEpochDay() - birthDate.toEpochDay();
+                for (int v = 0; v < visitsCount; v++) {
+                    sink.visit(petIndex, birthDate.plusDays(random.nextLong(ageDays)),
+                        visitReasons[visitReasonSampler.sample(random)]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the numbers of pets and visits {@link #generateOwners} would generate for the same owners
+     */
+    Counts countOwners(int fromOwner, int toOwner) {
+        long petsCount = 0;
+        long visitsCount = 0;
+        for (int ownerIndex = fromOwner; ownerIndex < toOwner; ownerIndex++) {
+            SplittableRandom shape = randomOf(ownerIndex);
+            shape.split();
+            int ownerPetsCount = nextPetsCount(shape);
+            for (int p = 0; p < ownerPetsCount; p++) {
+                visitsCount += nextVisitsCount(shape);
+            }
+            petsCount += ownerPetsCount;
+        }
+        return new Counts(toOwner - fromOwner, petsCount, visitsCount);
+    }
+
+    private int nextPetsCount(SplittableRandom shape) {
+        return 1 + dataset.petsDistribution().next(shape, dataset.petsPerOwner() - 1);
+    }
+
+    private int nextVisitsCount(SplittableRandom shape) {
+        return dataset.visitsDistribution().next(shape, dataset.visitsPerPet());
+    }
+
+    /**
+     * Generates the vets {@code [fromVet, toVet)} (zero-based indices) along with their specialties
+     *
+     * @param specialtyIds ids of the specialties to choose from, the most common specialty first
+     */
+    void generateVets(int fromVet, int toVet, int[] specialtyIds, RowSink sink) {
+        ZipfSampler specialtySampler = new ZipfSampler(specialtyIds.length, 1.0);
+        for (int vetIndex = fromVet; vetIndex < toVet; vetIndex++) {
+            SplittableRandom random = randomOf(-1 - vetIndex);
+            sink.vet(vetIndex, firstNames[random.nextInt(firstNames.length)],
+                lastNames[lastNameSampler.sample(random)]);
+            int specialtiesCount = random.nextInt(Math.min(MAX_SPECIALTIES_PER_VET, specialtyIds.length) + 1);
+            Set<Integer> specialties = new LinkedHashSet<>();
+            while (specialties.size() < specialtiesCount) {
+                specialties.add(specialtyIds[specialtySampler.sample(random)]);
+            }
+            for (int specialtyId : specialties) {
+                sink.vetSpecialty(vetIndex, specialtyId);
+            }
+        }
+    }
+
+    private SplittableRandom randomOf(long index) {
+        return new SplittableRandom(dataset.seed() * 0x9E3779B97F4A7C15L + index);
+    }
+
+    private static String[] dictionary(int size, Supplier<String> faker, int maxLength) {
+        Set<String> values = new LinkedHashSet<>();
+        for (int attempt = 0; attempt < size * 10 && values.size() < size; attempt++) {
+            String value = faker.get();
+            values.add((value.length() <= maxLength) ? value : value.substring(0, maxLength));
+        }
+        return values.toArray(String[]::new);
+    }
+
+    record Counts(long owners, long pets, long visits) {
+
+        Counts plus(Counts other) {
+            return new Counts(owners + other.owners, pets + other.pets, visits + other.visits);
+        }
+    }
+
+    /**
+     * Receives the generated rows. Owners and vets are identified by their indices, pets by the indices
+     * {@link #pet} assigns to them.
+     */
+    interface RowSink {
+        void owner(int ownerIndex, String firstName, String lastName, String address, String city, String telephone);
+
+        /**
+         * @return index of the pet to refer to from its visits
+         */
+        int pet(int ownerIndex, String name, LocalDate birthDate, int typeId);
+
+        void visit(int petIndex, LocalDate date, String description);
+
+        void vet(int vetIndex, String firstName, String lastName);
+
+        void vetSpecialty(int vetIndex, int specialtyId);
+    }
+
+    /**
+     * Samples ranks {@code 0..n-1} with probabilities proportional to {@code 1 / (rank + 1)^exponent}
+     */
+    static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int position = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min((position >= 0) ? position : -position - 1, cumulative.length - 1);
+        }
+    }
+}
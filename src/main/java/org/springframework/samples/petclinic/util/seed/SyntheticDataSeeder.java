@@ -0,0 +1,365 @@
+package org.springframework.samples.petclinic.util.seed;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.util.seed.SyntheticDataGenerator.Counts;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a {@link SyntheticDataGenerator synthetic} clinic to the database on startup, next to the sample data, so that
+ * the repositories can be exercised on realistic volumes. Enabled by setting the number of owners to generate, e.g.
+ * {@code --seed-owners=100000}. <p/>
+ * The owners are split into chunks seeded in parallel, each on a connection of its own. As the ids of the pets and
+ * visits of every chunk are known upfront from {@link SyntheticDataGenerator#countOwners}, the chunks don't wait for
+ * each other, and the generated rows go straight to JDBC batches without being collected anywhere. Rows get explicit
+ * ids continuing the existing ones, after which the identity columns are restarted past the inserted rows. As every
+ * batch is committed on its own, a failure of any chunk makes the seeder delete the whole id range of the synthetic
+ * rows, leaving the database as it was. Only the embedded H2 and HSQLDB databases are supported as the explicit ids
+ * rely on their SQL dialects.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@ConditionalOnProperty("seed-owners")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SyntheticDataSeeder implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataSeeder.class);
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final int CHUNK_OWNERS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String platform;
+    private final SyntheticDataset dataset;
+    private final int threadsCount;
+
+    public SyntheticDataSeeder(JdbcTemplate jdbcTemplate,
+                               @Value("${spring.sql.init.platform}") String platform,
+                               @Value("${seed-owners}") int owners,
+                               @Value("${seed-vets:0}") int vets,
+                               @Value("${seed-pets-per-owner:2.0}") double petsPerOwner,
+                               @Value("${seed-pets-distribution:geometric}") CountDistribution petsDistribution,
+                               @Value("${seed-visits-per-pet:3.0}") double visitsPerPet,
+                               @Value("${seed-visits-distribution:geometric}") CountDistribution visitsDistribution,
+                               @Value("${seed-random:42}") long seed,
+                               @Value("${seed-threads:0}") int threadsCount) {
+        if (!platform.equals("h2") && !platform.equals("hsqldb")) {
+            throw new IllegalStateException("Synthetic data can only be seeded into H2 or HSQLDB, not " + platform);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.platform = platform;
+        this.dataset = new SyntheticDataset(seed, owners, vets, petsPerOwner, petsDistribution, visitsPerPet,
+            visitsDistribution);
+        this.threadsCount = (threadsCount > 0) ? threadsCount : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        long startTime = System.nanoTime();
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(dataset);
+        int[] typeIds = queryIds("types");
+        int[] specialtyIds = queryIds("specialties");
+
+        // fix the ids of every chunk upfront so that the chunks can be seeded in any order
+        List<Chunk> chunks = new ArrayList<>();
+        Counts seeded = new Counts(0, 0, 0);
+        Ids firstIds = new Ids(nextId("owners"), nextId("pets"), nextId("visits"), nextId("vets"));
+        for (int fromOwner = 0; fromOwner < dataset.owners(); fromOwner += CHUNK_OWNERS) {
+            int toOwner = Math.min(fromOwner + CHUNK_OWNERS, dataset.owners());
+            chunks.add(new Chunk(fromOwner, toOwner, firstIds.plus(seeded)));
+            seeded = seeded.plus(generator.countOwners(fromOwner, toOwner));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threadsCount)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                futures.add(executor.submit(() -> insert(chunk.firstIds(),
+                    sink -> generator.generateOwners(chunk.fromOwner(), chunk.toOwner(), typeIds, sink))));
+            }
+            futures.add(executor.submit(() -> insert(firstIds,
+                sink -> generator.generateVets(0, dataset.vets(), specialtyIds, sink))));
+            awaitAll(futures, executor);
+        }
+        catch (IllegalStateException e) {
+            // the executor has been closed by now, so no chunk is going to insert anything anymore
+            try {
+                deleteSeeded(firstIds, seeded);
+            }
+            catch (RuntimeException cleanupFailure) {
+                e.addSuppressed(cleanupFailure);
+                log.error("Failed to delete the partially seeded synthetic data, it's to be removed manually");
+            }
+            throw e;
+        }
+        for (String table : List.of("owners", "pets", "visits", "vets")) {
+            restartIdentity(table);
+        }
+
+        long elapsedMillis = Math.max((System.nanoTime() - startTime) / 1_000_000, 1);
+        long rowsCount = seeded.owners() + seeded.pets() + seeded.visits() + dataset.vets();
+        log.info("Seeded {} owners, {} pets, {} visits and {} vets (random seed {}) in {} ms with {} threads, " +
+                "{} rows/s", seeded.owners(), seeded.pets(), seeded.visits(), dataset.vets(), dataset.seed(),
+            elapsedMillis, threadsCount, rowsCount * 1000 / elapsedMillis);
+    }
+
+    private static void awaitAll(List<Future<?>> futures, ExecutorService executor) throws InterruptedException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (ExecutionException e) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Failed to seed synthetic data", e.getCause());
+        }
+    }
+
+    /**
+     * Feeds the rows generated by the given action to the database within a transaction per batch
+     */
+    private void insert(Ids firstIds, SeedAction action) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (JdbcSink sink = new JdbcSink(connection, firstIds)) {
+                action.generate(sink);
+                sink.flush();
+            }
+            catch (SQLException | RuntimeException e) {
+                connection.rollback();      // only the current batch, the preceding ones are committed already
+                throw e;
+            }
+            finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deletes the rows within the id ranges reserved for the synthetic data, children first
+     */
+    private void deleteSeeded(Ids firstIds, Counts seeded) {
+        log.warn("Deleting the partially seeded synthetic data");
+        deleteRange("visits", "id", firstIds.visit(), seeded.visits());
+        deleteRange("pets", "id", firstIds.pet(), seeded.pets());
+        deleteRange("owners", "id", firstIds.owner(), seeded.owners());
+        deleteRange("vet_specialties", "vet_id", firstIds.vet(), dataset.vets());
+        deleteRange("vets", "id", firstIds.vet(), dataset.vets());
+    }
+
+    private void deleteRange(String table, String idColumn, int firstId, long count) {
+        jdbcTemplate.update("DELETE FROM " + table + " WHERE " + idColumn + " >= ? AND " + idColumn + " < ?",
+            firstId, firstId + count);
+    }
+
+    /**
+     * @return ids of the rows of the given dictionary table, the ones of the sample data (i.e. the most common) first
+     */
+    private int[] queryIds(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Integer.class).stream()
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    private int nextId(String table) {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+        return (maxId == null) ? 1 : maxId + 1;
+    }
+
+    private void restartIdentity(String table) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + nextId(table));
+    }
+
+    private String insertWithId(String table, String columns) {
+        // H2 identities are GENERATED ALWAYS, HSQLDB ones accept explicit values as they are
+        String overriding = platform.equals("h2") ? " OVERRIDING SYSTEM VALUE" : "";
+        String placeholders = "?" + ", ?".repeat(columns.split(",").length);
+        return "INSERT INTO " + table + " (id, " + columns + ")" + overriding + " VALUES (" + placeholders + ")";
+    }
+
+    private record Chunk(int fromOwner, int toOwner, Ids firstIds) {
+    }
+
+    /**
+     * Ids of the owner (and vet) with index 0, and of the first pet and visit of a chunk
+     */
+    private record Ids(int owner, int pet, int visit, int vet) {
+
+        Ids plus(Counts counts) {
+            return new Ids(owner, pet + Math.toIntExact(counts.pets()), visit + Math.toIntExact(counts.visits()), vet);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SeedAction {
+        void generate(SyntheticDataGenerator.RowSink sink);
+    }
+
+    /**
+     * Adds the generated rows to a batch per table. The batches are flushed parents first to satisfy the foreign keys,
+     * and only between owners (or vets), so that the pets and visits of an owner are flushed together with it.
+     */
+    private class JdbcSink implements SyntheticDataGenerator.RowSink, AutoCloseable {
+        private final Connection connection;
+        private final Ids firstIds;
+        private final List<PreparedStatement> statements = new ArrayList<>();
+        private final Set<PreparedStatement> pendingStatements = new HashSet<>();
+
+        private final PreparedStatement owners;
+        private final PreparedStatement pets;
+        private final PreparedStatement visits;
+        private final PreparedStatement vets;
+        private final PreparedStatement vetSpecialties;
+
+        private int petsCount;
+        private int visitsCount;
+        private int pendingRows;
+
+        JdbcSink(Connection connection, Ids firstIds) throws SQLException {
+            this.connection = connection;
+            this.firstIds = firstIds;
+            // the order of the statements is the order of the flushes
+            this.owners = prepare(insertWithId("owners", "first_name, last_name, address, city, telephone"));
+            this.pets = prepare(insertWithId("pets", "name, birth_date, type_id, owner_id"));
+            this.visits = prepare(insertWithId("visits", "pet_id, visit_date, description"));
+            this.vets = prepare(insertWithId("vets", "first_name, last_name"));
+            this.vetSpecialties = prepare("INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)");
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statements.add(statement);
+            return statement;
+        }
+
+        @Override
+        public void owner(int ownerIndex, String firstName, String lastName, String address, String city,
+                          String telephone) {
+            try {
+                flushIfFull();
+                owners.setInt(1, firstIds.owner() + ownerIndex);
+                owners.setString(2, firstName);
+                owners.setString(3, lastName);
+                owners.setString(4, address);
+                owners.setString(5, city);
+                owners.setString(6, telephone);
+                addBatch(owners);
+            }
+            catch (SQLException e) {
+                throw new IllegalStateException("Failed to seed owner #" + ownerIndex, e);
+            }
+        }
+
+        @Override
+        public int pet(int ownerIndex, String name, LocalDate birthDate, int typeId) {
+            try {
+                pets.setInt(1, firstIds.pet() + petsCount);
+                pets.setString(2, name);
+                pets.setDate(3, Date.valueOf(birthDate));
+                pets.setInt(4, typeId);
+                pets.setInt(5, firstIds.owner() + ownerIndex);
+                addBatch(pets);
+            }
+            catch (SQLException e) {
+                throw new IllegalStateException("Failed to seed a pet of owner #" + ownerIndex, e);
+            }
+            return petsCount++;
+        }
+
+        @Override
+        public void visit(int petIndex, LocalDate date, String description) {
+            try {
+                visits.setInt(1, firstIds.visit() + visitsCount++);
+                visits.setInt(2, firstIds.pet() + petIndex);
+                visits.setDate(3, Date.valueOf(date));
+                visits.setString(4, description);
+                addBatch(visits);
+            }
+            catch (SQLException e) {
+                throw new IllegalStateException("Failed to seed a visit", e);
+            }
+        }
+
+        @Override
+        public void vet(int vetIndex, String firstName, String lastName) {
+            try {
+                flushIfFull();
+                vets.setInt(1, firstIds.vet() + vetIndex);
+                vets.setString(2, firstName);
+                vets.setString(3, lastName);
+                addBatch(vets);
+            }
+            catch (SQLException e) {
+                throw new IllegalStateException("Failed to seed vet #" + vetIndex, e);
+            }
+        }
+
+        @Override
+        public void vetSpecialty(int vetIndex, int specialtyId) {
+            try {
+                vetSpecialties.setInt(1, firstIds.vet() + vetIndex);
+                vetSpecialties.setInt(2, specialtyId);
+                addBatch(vetSpecialties);
+            }
+            catch (SQLException e) {
+                throw new IllegalStateException("Failed to seed a specialty of vet #" + vetIndex, e);
+            }
+        }
+
+        private void addBatch(PreparedStatement statement) throws SQLException {
+            statement.addBatch();
+            pendingStatements.add(statement);
+            pendingRows++;
+        }
+
+        private void flushIfFull() throws SQLException {
+            if (pendingRows >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            if (pendingRows > 0) {
+                // some drivers refuse to execute empty batches
+                for (PreparedStatement statement : statements) {
+                    if (pendingStatements.contains(statement)) {
+                        statement.executeBatch();
+                    }
+                }
+                connection.commit();
+                pendingStatements.clear();
+                pendingRows = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement statement : statements) {
+                statement.close();
+            }
+        }
+    }
+}
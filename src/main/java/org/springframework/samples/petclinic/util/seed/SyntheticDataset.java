@@ -0,0 +1,30 @@
+package org.springframework.samples.petclinic.util.seed;
+
+import org.springframework.util.Assert;
+
+/**
+ * Size and shape of a synthetic clinic
+ *
+ * @param seed               makes the generated data reproducible
+ * @param owners             number of owners to generate
+ * @param vets               number of vets to generate
+ * @param petsPerOwner       mean number of pets per owner (at least 1)
+ * @param petsDistribution   distribution of the numbers of pets beyond the first one
+ * @param visitsPerPet       mean number of visits per pet
+ * @param visitsDistribution distribution of the numbers of visits per pet
+ * @author Vladimir Plizga
+ */
+record SyntheticDataset(long seed, int owners, int vets,
+                        double petsPerOwner, CountDistribution petsDistribution,
+                        double visitsPerPet, CountDistribution visitsDistribution) {
+
+    SyntheticDataset {
+        Assert.isTrue(owners >= 0 && vets >= 0, "Numbers of owners and vets must not be negative");
+        Assert.isTrue(petsPerOwner >= 1, "Every owner has at least one pet");
+        Assert.isTrue(visitsPerPet >= 0, "Mean number of visits per pet must not be negative");
+    }
+
+    SyntheticDataset(long seed, int owners, int vets, double petsPerOwner, double visitsPerPet) {
+        this(seed, owners, vets, petsPerOwner, CountDistribution.GEOMETRIC, visitsPerPet, CountDistribution.GEOMETRIC);
+    }
+}
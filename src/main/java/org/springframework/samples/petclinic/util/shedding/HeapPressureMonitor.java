@@ -0,0 +1,202 @@
+package org.springframework.samples.petclinic.util.shedding;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estimates how close the application is to running out of heap from two signals delivered by GC notifications:
+ * <ul>
+ *     <li>heap occupancy right after the latest collection, i.e. roughly the live set, against the max heap size;</li>
+ *     <li>share of the wall-clock time spent in GC pauses within the last {@code shedding-gc-window}.</li>
+ * </ul>
+ * The {@link Pressure} is the worst of the levels the signals reach. It is re-evaluated on every collection and, as
+ * the pauses leave the window, at most once per {@link #EVALUATION_PERIOD_NANOS} when queried, so querying it on every
+ * request is cheap.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@ConditionalOnProperty("enable-load-shedding")
+public class HeapPressureMonitor implements NotificationListener {
+    private static final Logger log = LoggerFactory.getLogger(HeapPressureMonitor.class);
+
+    private static final long EVALUATION_PERIOD_NANOS = Duration.ofSeconds(1).toNanos();
+
+    public enum Pressure {
+        NORMAL, ELEVATED, CRITICAL
+    }
+
+    private final double heapElevatedThreshold;
+    private final double heapCriticalThreshold;
+    private final double gcElevatedThreshold;
+    private final double gcCriticalThreshold;
+    private final long gcWindowNanos;
+
+    private final long maxHeapBytes = Runtime.getRuntime().maxMemory();
+    private final Set<String> heapPoolNames = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .map(MemoryPoolMXBean::getName)
+        .collect(Collectors.toSet());
+    private final List<NotificationEmitter> subscribedCollectors = new ArrayList<>();
+
+    /**
+     * End times and durations (both in nanoseconds) of the pauses within the window, the oldest first
+     */
+    private final Deque<long[]> recentPauses = new ArrayDeque<>();
+
+    private volatile double heapOccupancy;
+    private volatile double gcPauseRatio;
+    private volatile Pressure pressure = Pressure.NORMAL;
+    private volatile long lastEvaluationNanos = System.nanoTime();
+
+    public HeapPressureMonitor(MeterRegistry meterRegistry,
+                               @Value("${shedding-heap-elevated:0.75}") double heapElevatedThreshold,
+                               @Value("${shedding-heap-critical:0.9}") double heapCriticalThreshold,
+                               @Value("${shedding-gc-elevated:0.1}") double gcElevatedThreshold,
+                               @Value("${shedding-gc-critical:0.25}") double gcCriticalThreshold,
+                               @Value("${shedding-gc-window:10s}") Duration gcWindow) {
+        this.heapElevatedThreshold = heapElevatedThreshold;
+        this.heapCriticalThreshold = heapCriticalThreshold;
+        this.gcElevatedThreshold = gcElevatedThreshold;
+        this.gcCriticalThreshold = gcCriticalThreshold;
+        this.gcWindowNanos = gcWindow.toNanos();
+
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.heap.pressure
+        Gauge.builder("petclinic.heap.pressure", this, monitor -> monitor.pressure().ordinal())
+            .description("Heap pressure level: 0 - normal, 1 - elevated, 2 - critical")
+            .register(meterRegistry);
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.heap.occupancy-after-gc
+        Gauge.builder("petclinic.heap.occupancy-after-gc", this, monitor -> monitor.heapOccupancy)
+            .description("Share of the max heap occupied right after the latest garbage collection")
+            .register(meterRegistry);
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.gc.pause-ratio
+        Gauge.builder("petclinic.gc.pause-ratio", this, monitor -> monitor.gcPauseRatio)
+            .description("Share of the recent wall-clock time spent in GC pauses")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribeToCollections() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(this, null, null);
+                subscribedCollectors.add(emitter);
+            }
+        }
+        log.debug("Watching heap pressure of {} bytes max heap via {} collectors",
+            maxHeapBytes, subscribedCollectors.size());
+    }
+
+    @PreDestroy
+    void unsubscribeFromCollections() {
+        for (NotificationEmitter emitter : subscribedCollectors) {
+            try {
+                emitter.removeNotificationListener(this);
+            }
+            catch (Exception e) {
+                log.trace("Failed to unsubscribe from {}", emitter, e);
+            }
+        }
+    }
+
+    public Pressure pressure() {
+        if (System.nanoTime() - lastEvaluationNanos > EVALUATION_PERIOD_NANOS) {
+            evaluate(System.nanoTime());
+        }
+        return pressure;
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        // concurrent collectors report their (mostly concurrent) cycles separately from the pauses
+        boolean isPause = !info.getGcName().endsWith("Cycles");
+        long usedAfterGc = 0;
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPoolNames.contains(pool.getKey())) {
+                usedAfterGc += pool.getValue().getUsed();
+            }
+        }
+        recordCollection(System.nanoTime(), isPause ? info.getGcInfo().getDuration() * 1_000_000 : 0,
+            (double) usedAfterGc / maxHeapBytes);
+    }
+
+    /**
+     * @param endNanos      when the collection ended, by {@link System#nanoTime()}
+     * @param pauseNanos    how long the application was paused, 0 for concurrent cycles
+     * @param heapOccupancy share of the max heap occupied after the collection
+     */
+    void recordCollection(long endNanos, long pauseNanos, double heapOccupancy) {
+        synchronized (recentPauses) {
+            if (pauseNanos > 0) {
+                recentPauses.addLast(new long[] {endNanos, pauseNanos});
+            }
+            this.heapOccupancy = heapOccupancy;
+        }
+        evaluate(endNanos);
+    }
+
+    private void evaluate(long nowNanos) {
+        Pressure previous;
+        Pressure current;
+        synchronized (recentPauses) {
+            while (!recentPauses.isEmpty() && nowNanos - recentPauses.peekFirst()[0] > gcWindowNanos) {
+                recentPauses.removeFirst();
+            }
+            long pausedNanos = 0;
+            for (long[] pause : recentPauses) {
+                pausedNanos += pause[1];
+            }
+            gcPauseRatio = Math.min(1.0, (double) pausedNanos / gcWindowNanos);
+
+            previous = pressure;
+            if (heapOccupancy >= heapCriticalThreshold || gcPauseRatio >= gcCriticalThreshold) {
+                current = Pressure.CRITICAL;
+            }
+            else if (heapOccupancy >= heapElevatedThreshold || gcPauseRatio >= gcElevatedThreshold) {
+                current = Pressure.ELEVATED;
+            }
+            else {
+                current = Pressure.NORMAL;
+            }
+            pressure = current;
+            lastEvaluationNanos = nowNanos;
+        }
+        if (current != previous) {
+            log.warn("Heap pressure changed from {} to {} (heap occupancy after GC: {}%, GC pauses: {}%)",
+                previous, current, Math.round(heapOccupancy * 100), Math.round(gcPauseRatio * 100));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.springframework.samples.petclinic.util.shedding;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.service.perf.memory.PortfolioService;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * Applies {@link LoadSheddingInterceptor} to the REST endpoints
+ *
+ * @author Vladimir Plizga
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("enable-load-shedding")
+class LoadSheddingConfig {
+
+    @Bean
+    MappedInterceptor loadSheddingInterceptor(HeapPressureMonitor heapPressureMonitor,
+                                              MeterRegistry meterRegistry,
+                                              ObjectProvider<PortfolioService> portfolioService,
+                                              @Value("${shedding-retry-after:10s}") Duration retryAfter) {
+        return new MappedInterceptor(new String[] {"/api/**"}, new LoadSheddingInterceptor(heapPressureMonitor,
+            meterRegistry, retryAfter, portfolioService.getIfAvailable() != null));
+    }
+}
@@ -0,0 +1,81 @@
+package org.springframework.samples.petclinic.util.shedding;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.util.shedding.HeapPressureMonitor.Pressure;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Admission control of the REST endpoints under heap pressure: an expensive endpoint is answered with
+ * {@code 503 Service Unavailable} and a {@code Retry-After} header as soon as the {@link HeapPressureMonitor} reports
+ * the pressure the endpoint is shed at. The heaviest endpoints (AI diagnostics and vets with portfolios) go first, at
+ * {@link Pressure#ELEVATED}; the full lists follow at {@link Pressure#CRITICAL}. All the other endpoints, i.e. cheap
+ * reads of single entities and modifications, are always admitted.
+ *
+ * @author Vladimir Plizga
+ */
+class LoadSheddingInterceptor implements HandlerInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(LoadSheddingInterceptor.class);
+
+    private final HeapPressureMonitor heapPressureMonitor;
+    private final MeterRegistry meterRegistry;
+    private final String retryAfterSeconds;
+
+    /**
+     * Key: HTTP method and URI pattern of an endpoint, value: the lowest pressure the endpoint is shed at
+     */
+    private final Map<String, Pressure> shedEndpoints = new HashMap<>();
+
+    LoadSheddingInterceptor(HeapPressureMonitor heapPressureMonitor, MeterRegistry meterRegistry,
+                            Duration retryAfter, boolean arePortfoliosLoaded) {
+        this.heapPressureMonitor = heapPressureMonitor;
+        this.meterRegistry = meterRegistry;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+
+        shedEndpoints.put("GET /api/pets/{petId}/diagnostics", Pressure.ELEVATED);
+        if (arePortfoliosLoaded) {
+            shedEndpoints.put("GET /api/vets/{vetId}", Pressure.ELEVATED);
+        }
+        shedEndpoints.put("GET /api/owners", Pressure.CRITICAL);
+        shedEndpoints.put("GET /api/pets", Pressure.CRITICAL);
+        shedEndpoints.put("GET /api/vets", Pressure.CRITICAL);
+        shedEndpoints.put("GET /api/visits", Pressure.CRITICAL);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Pressure pressure = heapPressureMonitor.pressure();
+        if (pressure == Pressure.NORMAL) {
+            return true;
+        }
+        Object uriPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + uriPattern;
+        Pressure shedPressure = shedEndpoints.get(endpoint);
+        if (shedPressure == null || pressure.compareTo(shedPressure) < 0) {
+            return true;
+        }
+
+        log.debug("Rejected {} under {} heap pressure", endpoint, pressure);
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.shedding.rejected
+        Counter.builder("petclinic.shedding.rejected")
+            .description("Requests rejected because of heap pressure")
+            .tags("method", request.getMethod(), "uri", String.valueOf(uriPattern), "pressure", pressure.name())
+            .register(meterRegistry)
+            .increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        return false;
+    }
+}
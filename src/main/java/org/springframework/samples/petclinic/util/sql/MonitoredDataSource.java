@@ -0,0 +1,203 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import javax.sql.DataSource;
+
+/**
+ * JDK proxies reporting SQL statements to a {@link SqlStatementListener}. The proxied {@link DataSource} hands out proxied
+ * connections, which in turn create proxied statements timing their executions; the result sets of the statements
+ * count the rows read through them and report the count on close.
+ *
+ * @author Vladimir Plizga
+ */
+final class MonitoredDataSource {
+
+    private static final Set<String> STATEMENT_FACTORY_METHODS = Set.of("createStatement", "prepareStatement",
+        "prepareCall");
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+        "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    /**
+     * Stands for the SQL of a plain statement's batch consisting of several different statements
+     */
+    private static final String MIXED_BATCH_SQL = "<batch>";
+
+    private MonitoredDataSource() {
+    }
+
+    static DataSource wrap(DataSource dataSource, Supplier<? extends SqlStatementListener> listener) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return (result instanceof Connection connection)
+                ? wrapConnection(connection, listener)
+                : result;
+        });
+    }
+
+    static boolean isMonitored(Object object) {
+        return Proxy.isProxyClass(object.getClass())
+            && Proxy.getInvocationHandler(object) instanceof MonitoringHandler;
+    }
+
+    private static Connection wrapConnection(Connection connection,
+                                             Supplier<? extends SqlStatementListener> listener) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && STATEMENT_FACTORY_METHODS.contains(method.getName())) {
+                String normalizedSql = (args != null && args.length > 0 && args[0] instanceof String sql)
+                    ? SqlNormalizer.normalize(sql)
+                    : null;     // a plain statement gets its SQL on every execution
+                return proxy(method.getReturnType(), new StatementHandler(statement, normalizedSql,
+                    listener.get()));
+            }
+            return result;
+        });
+    }
+
+    private static class StatementHandler implements MonitoringHandler {
+        private final Statement statement;
+        private final SqlStatementListener listener;
+        private String normalizedSql;
+
+        StatementHandler(Statement statement, String normalizedSql, SqlStatementListener listener) {
+            this.statement = statement;
+            this.normalizedSql = normalizedSql;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("addBatch") && args != null && args.length == 1) {
+                String batchSql = SqlNormalizer.normalize((String) args[0]);
+                normalizedSql = (normalizedSql == null || normalizedSql.equals(batchSql)) ? batchSql : MIXED_BATCH_SQL;
+            }
+            if (!EXECUTE_METHODS.contains(methodName)) {
+                Object result = MonitoredDataSource.invoke(statement, method, args);
+                return (result instanceof ResultSet resultSet && methodName.equals("getResultSet"))
+                    ? wrapResultSet(resultSet)
+                    : result;
+            }
+
+            String executedSql = (args != null && args.length > 0 && args[0] instanceof String sql)
+                ? SqlNormalizer.normalize(sql)
+                : normalizedSql;
+            if (executedSql == null) {
+                executedSql = MIXED_BATCH_SQL;
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = MonitoredDataSource.invoke(statement, method, args);
+            }
+            finally {
+                listener.recordExecution(executedSql, System.nanoTime() - start);
+            }
+            normalizedSql = executedSql;       // for the result set obtained with getResultSet()
+            if (result instanceof ResultSet resultSet) {
+                return wrapResultSet(resultSet);
+            }
+            if (result instanceof Number updateCount) {
+                listener.recordRows(executedSql, updateCount.longValue());
+            }
+            else if (result instanceof int[] updateCounts) {
+                recordBatchRows(executedSql, Arrays.stream(updateCounts).asLongStream());
+            }
+            else if (result instanceof long[] updateCounts) {
+                recordBatchRows(executedSql, Arrays.stream(updateCounts));
+            }
+            return result;
+        }
+
+        /**
+         * Records the total of the rows affected by the entries of a batch, unless the driver hasn't reported it
+         */
+        private void recordBatchRows(String executedSql, LongStream updateCounts) {
+            long rows = 0;
+            for (PrimitiveIterator.OfLong counts = updateCounts.iterator(); counts.hasNext(); ) {
+                long count = counts.nextLong();
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    return;     // the rows of an entry are unknown, hence the total is unknown too
+                }
+                rows += Math.max(count, 0);      // a failed entry (EXECUTE_FAILED) affects no rows
+            }
+            listener.recordRows(executedSql, rows);
+        }
+
+        private ResultSet wrapResultSet(ResultSet resultSet) {
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, normalizedSql, listener));
+        }
+    }
+
+    private static class ResultSetHandler implements MonitoringHandler {
+        private final ResultSet resultSet;
+        private final String normalizedSql;
+        private final SqlStatementListener listener;
+        private long rows;
+        private boolean reported;
+
+        ResultSetHandler(ResultSet resultSet, String normalizedSql, SqlStatementListener listener) {
+            this.resultSet = resultSet;
+            this.normalizedSql = normalizedSql;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = MonitoredDataSource.invoke(resultSet, method, args);
+            switch (method.getName()) {
+                case "next" -> {
+                    if (Boolean.TRUE.equals(result)) {
+                        rows++;
+                    }
+                }
+                case "close" -> {
+                    if (!reported) {
+                        reported = true;
+                        listener.recordRows(normalizedSql, rows);
+                    }
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Marks the handlers of the proxies created here
+     */
+    private interface MonitoringHandler extends InvocationHandler {
+    }
+
+    private static <T> T proxy(Class<T> type, MonitoringHandler handler) {
+        // a proxy is equal to itself only, as opposed to its target (which doesn't know anything about the proxy)
+        MonitoringHandler identityAwareHandler = (proxy, method, args) ->
+            (method.getName().equals("equals") && args != null && args.length == 1)
+                ? (proxy == args[0])
+                : handler.invoke(proxy, method, args);
+        return type.cast(Proxy.newProxyInstance(MonitoredDataSource.class.getClassLoader(), new Class<?>[]{type},
+            identityAwareHandler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the application {@link DataSource} into a {@linkplain MonitoredDataSource monitoring proxy}. The
+ * {@link SqlMonitor} is looked up lazily so that this post processor doesn't drag it (along with the meter registry)
+ * into early initialization.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@ConditionalOnProperty("enable-sql-monitoring")
+public class MonitoredDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlMonitor> sqlMonitor;
+
+    public MonitoredDataSourcePostProcessor(ObjectProvider<SqlMonitor> sqlMonitor) {
+        this.sqlMonitor = sqlMonitor;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !MonitoredDataSource.isMonitored(dataSource)) {
+            return MonitoredDataSource.wrap(dataSource, sqlMonitor::getObject);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,157 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Accounts SQL statements reported by {@link MonitoredDataSource} proxies. Every statement is recorded to Micrometer
+ * under its normalized form and, if it is executed within an HTTP request, to the request's {@link SqlRequestStats}
+ * bound by {@link SqlMonitoringFilter}. Once the request completes, the statements executed more than
+ * {@code sql-n-plus-one-threshold} times are reported as possible N+1 problems.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@ConditionalOnProperty("enable-sql-monitoring")
+public class SqlMonitor implements SqlStatementListener {
+    private static final Logger log = LoggerFactory.getLogger(SqlMonitor.class);
+
+    static final String REQUEST_STATS_ATTRIBUTE = SqlRequestStats.class.getName();
+
+    /**
+     * Keeps the metric tags of ad-hoc (non-prepared) statements reasonably short
+     */
+    private static final int MAX_TAGGED_SQL_LENGTH = 200;
+    /**
+     * Upper bound of distinct normalized statements to cache the meters for
+     */
+    private static final int MAX_CACHED_STATEMENTS = 1_000;
+    /**
+     * Metric tag of the statements beyond {@link #MAX_CACHED_STATEMENTS}
+     */
+    private static final String OTHER_STATEMENTS = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    private final Map<String, StatementMeters> metersBySql = new ConcurrentHashMap<>();
+    private final StatementMeters otherMeters;
+
+    public SqlMonitor(MeterRegistry meterRegistry,
+                      @Value("${sql-n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.otherMeters = new StatementMeters(OTHER_STATEMENTS);
+        log.debug("SQL monitoring is enabled with N+1 threshold of {} executions per request", nPlusOneThreshold);
+    }
+
+    @Override
+    public void recordExecution(String normalizedSql, long elapsedNanos) {
+        metersOf(normalizedSql).executions.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        SqlRequestStats requestStats = currentRequestStats();
+        if (requestStats != null) {
+            requestStats.addExecution(normalizedSql, elapsedNanos);
+        }
+    }
+
+    @Override
+    public void recordRows(String normalizedSql, long rows) {
+        metersOf(normalizedSql).rows.record(rows);
+        SqlRequestStats requestStats = currentRequestStats();
+        if (requestStats != null) {
+            requestStats.addRows(normalizedSql, rows);
+        }
+    }
+
+    /**
+     * Publishes the statistics of a completed request and checks it for the N+1 problem
+     *
+     * @return the statements considered as N+1 problems along with their execution counts
+     */
+    Map<String, Integer> completeRequest(String method, String uri, SqlRequestStats requestStats) {
+        // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.sql.requests.statements
+        DistributionSummary.builder("petclinic.sql.requests.statements")
+            .description("Number of SQL statements executed per HTTP request")
+            .tags("method", method, "uri", uri)
+            .register(meterRegistry)
+            .record(requestStats.getStatementsCount());
+
+        Map<String, Integer> repeatedStatements = requestStats.findRepeatedStatements(nPlusOneThreshold);
+        repeatedStatements.forEach((sql, executions) -> {
+            log.warn("Possible N+1 problem in {} {}: statement executed {} times: {}", method, uri, executions, sql);
+            // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.sql.n-plus-one
+            Counter.builder("petclinic.sql.n-plus-one")
+                .description("HTTP requests repeating the same SQL statement more than the threshold number of times")
+                .tags("method", method, "uri", uri, "statement", statementTag(sql))
+                .register(meterRegistry)
+                .increment();
+        });
+        return repeatedStatements;
+    }
+
+    @Nullable
+    private static SqlRequestStats currentRequestStats() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        return (SqlRequestStats) requestAttributes.getAttribute(REQUEST_STATS_ATTRIBUTE,
+            RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * @return the meters of the statement; beyond the limit of distinct statements all the new ones share the same
+     * meters, so that the number of time series stays bounded
+     */
+    private StatementMeters metersOf(String normalizedSql) {
+        StatementMeters meters = metersBySql.get(normalizedSql);
+        if (meters != null) {
+            return meters;
+        }
+        if (metersBySql.size() >= MAX_CACHED_STATEMENTS) {
+            return otherMeters;
+        }
+        return metersBySql.computeIfAbsent(normalizedSql, StatementMeters::new);
+    }
+
+    private String statementTag(String normalizedSql) {
+        return metersBySql.containsKey(normalizedSql) ? abbreviate(normalizedSql) : OTHER_STATEMENTS;
+    }
+
+    private static String abbreviate(String sql) {
+        return (sql.length() <= MAX_TAGGED_SQL_LENGTH) ? sql : sql.substring(0, MAX_TAGGED_SQL_LENGTH - 3) + "...";
+    }
+
+    private class StatementMeters {
+        final Timer executions;
+        final DistributionSummary rows;
+
+        StatementMeters(String normalizedSql) {
+            String statement = abbreviate(normalizedSql);
+            // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.sql.statements
+            executions = Timer.builder("petclinic.sql.statements")
+                .description("Execution time of SQL statements")
+                .tag("statement", statement)
+                .register(meterRegistry);
+            // available as http://localhost:9966/petclinic/actuator/metrics/petclinic.sql.rows
+            rows = DistributionSummary.builder("petclinic.sql.rows")
+                .description("Number of rows returned or affected by SQL statements")
+                .tag("statement", statement)
+                .register(meterRegistry);
+        }
+    }
+}
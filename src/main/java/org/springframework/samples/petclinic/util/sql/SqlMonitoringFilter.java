@@ -0,0 +1,71 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Binds {@link SqlRequestStats} to every HTTP request and hands them over to {@link SqlMonitor} once the request is
+ * served. With {@code sql-debug-header=true} the stats are also returned in the {@value #STATS_HEADER} response header
+ * (and the possible N+1 problems in the {@value #N_PLUS_ONE_HEADER} one); to make it possible, the response body is
+ * buffered until the request completes.
+ *
+ * @author Vladimir Plizga
+ */
+@Component
+@ConditionalOnProperty("enable-sql-monitoring")
+public class SqlMonitoringFilter extends OncePerRequestFilter {
+
+    static final String STATS_HEADER = "X-SQL-Stats";
+    static final String N_PLUS_ONE_HEADER = "X-SQL-N-Plus-One";
+
+    private final SqlMonitor sqlMonitor;
+    private final boolean isDebugHeaderEnabled;
+
+    public SqlMonitoringFilter(SqlMonitor sqlMonitor,
+                               @Value("${sql-debug-header:false}") boolean isDebugHeaderEnabled) {
+        this.sqlMonitor = sqlMonitor;
+        this.isDebugHeaderEnabled = isDebugHeaderEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        SqlRequestStats requestStats = new SqlRequestStats();
+        request.setAttribute(SqlMonitor.REQUEST_STATS_ATTRIBUTE, requestStats);
+        HttpServletResponse servedResponse = isDebugHeaderEnabled
+            ? new ContentCachingResponseWrapper(response)
+            : response;
+        try {
+            filterChain.doFilter(request, servedResponse);
+        }
+        finally {
+            request.removeAttribute(SqlMonitor.REQUEST_STATS_ATTRIBUTE);
+            Object uriPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = (uriPattern != null) ? uriPattern.toString() : "UNKNOWN";
+            Map<String, Integer> repeatedStatements = sqlMonitor.completeRequest(request.getMethod(), uri,
+                requestStats);
+            if (servedResponse instanceof ContentCachingResponseWrapper cachingResponse) {
+                cachingResponse.setHeader(STATS_HEADER, requestStats.toString());
+                if (!repeatedStatements.isEmpty()) {
+                    cachingResponse.setHeader(N_PLUS_ONE_HEADER, repeatedStatements.entrySet().stream()
+                        .map(entry -> entry.getValue() + "x " + entry.getKey())
+                        .collect(Collectors.joining("; ")));
+                }
+                cachingResponse.copyBodyToResponse();
+            }
+        }
+    }
+}
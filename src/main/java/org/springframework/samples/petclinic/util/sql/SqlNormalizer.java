@@ -0,0 +1,87 @@
+package org.springframework.samples.petclinic.util.sql;
+
+/**
+ * Turns SQL statements into their normalized form, so that the statements differing only in literal values or in
+ * whitespace are considered the same: string and numeric literals become {@code ?}, runs of whitespace become a
+ * single space, and lists of parameters (like those of {@code IN (?, ?, ?)}) collapse into a single {@code ?}.
+ *
+ * @author Vladimir Plizga
+ */
+final class SqlNormalizer {
+
+    private SqlNormalizer() {
+    }
+
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // string literal, possibly with '' escapes inside
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                appendParameter(normalized);
+            }
+            else if (Character.isDigit(c) && !isPartOfIdentifier(normalized)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                appendParameter(normalized);
+            }
+            else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (!normalized.isEmpty() && i < length) {
+                    normalized.append(' ');
+                }
+            }
+            else if (c == '?') {
+                i++;
+                appendParameter(normalized);
+            }
+            else {
+                normalized.append(c);
+                i++;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Appends {@code ?} unless it would continue a list of parameters ({@code ?, ?} or {@code ?,?})
+     */
+    private static void appendParameter(StringBuilder normalized) {
+        int end = normalized.length();
+        if (end >= 3 && normalized.charAt(end - 1) == ' ' && normalized.charAt(end - 2) == ','
+            && normalized.charAt(end - 3) == '?') {
+            normalized.setLength(end - 2);
+        }
+        else if (end >= 2 && normalized.charAt(end - 1) == ',' && normalized.charAt(end - 2) == '?') {
+            normalized.setLength(end - 1);
+        }
+        else {
+            normalized.append('?');
+        }
+    }
+
+    private static boolean isPartOfIdentifier(StringBuilder normalized) {
+        if (normalized.isEmpty()) {
+            return false;
+        }
+        char previous = normalized.charAt(normalized.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+}
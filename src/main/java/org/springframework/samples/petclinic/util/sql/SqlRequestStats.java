@@ -0,0 +1,81 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL statements executed while serving a single HTTP request, aggregated by their normalized form.
+ *
+ * @author Vladimir Plizga
+ */
+public class SqlRequestStats {
+
+    private final Map<String, StatementStats> statements = new LinkedHashMap<>();
+
+    synchronized void addExecution(String normalizedSql, long elapsedNanos) {
+        StatementStats stats = statements.computeIfAbsent(normalizedSql, sql -> new StatementStats());
+        stats.executions++;
+        stats.elapsedNanos += elapsedNanos;
+    }
+
+    synchronized void addRows(String normalizedSql, long rows) {
+        statements.computeIfAbsent(normalizedSql, sql -> new StatementStats()).rows += rows;
+    }
+
+    /**
+     * @return the number of executed statements, repeated executions included
+     */
+    public synchronized int getStatementsCount() {
+        return statements.values().stream()
+            .mapToInt(stats -> stats.executions)
+            .sum();
+    }
+
+    public synchronized long getElapsedNanos() {
+        return statements.values().stream()
+            .mapToLong(stats -> stats.elapsedNanos)
+            .sum();
+    }
+
+    public synchronized long getRows() {
+        return statements.values().stream()
+            .mapToLong(stats -> stats.rows)
+            .sum();
+    }
+
+    /**
+     * @return execution counts of the normalized statements
+     */
+    public synchronized Map<String, Integer> getExecutionCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        statements.forEach((sql, stats) -> counts.put(sql, stats.executions));
+        return counts;
+    }
+
+    /**
+     * @return execution counts of the normalized statements executed more than {@code threshold} times, which is
+     * a typical sign of the N+1 problem
+     */
+    public synchronized Map<String, Integer> findRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statements.forEach((sql, stats) -> {
+            if (stats.executions > threshold) {
+                repeated.put(sql, stats.executions);
+            }
+        });
+        return repeated;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "statements=%d, time=%.3fms, rows=%d".formatted(getStatementsCount(),
+            (double) getElapsedNanos() / TimeUnit.MILLISECONDS.toNanos(1), getRows());
+    }
+
+    private static class StatementStats {
+        int executions;
+        long elapsedNanos;
+        long rows;
+    }
+}
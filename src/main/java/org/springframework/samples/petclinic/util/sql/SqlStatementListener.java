@@ -0,0 +1,17 @@
+package org.springframework.samples.petclinic.util.sql;
+
+/**
+ * Receives the SQL statements reported by {@link MonitoredDataSource} proxies. The statements are passed in their
+ * {@linkplain SqlNormalizer normalized} form.
+ *
+ * @author Vladimir Plizga
+ */
+interface SqlStatementListener {
+
+    void recordExecution(String normalizedSql, long elapsedNanos);
+
+    /**
+     * @param rows the number of rows read from a result set or affected by an update
+     */
+    void recordRows(String normalizedSql, long rows);
+}
@@ -1,5 +1,17 @@
 @echo off
-echo "Checking owner with phone=%1"
+if not "%~1"=="" (
+    echo "Checking owner with phone=%1"
+    rem Emulating some heavy work...
+    ping /n 2 /w 1000 localhost >nul
+    exit /b 0
+)
+rem Worker mode: reads one phone per line from stdin and answers with "<phone> <accounts count>" line
+:next
+set "phone="
+set /p phone=
+if not defined phone exit /b 0
+echo "Checking owner with phone=%phone%" 1>&2
 rem Emulating some heavy work...
 ping /n 2 /w 1000 localhost >nul
-exit /b 0
+echo %phone% 0
+goto next
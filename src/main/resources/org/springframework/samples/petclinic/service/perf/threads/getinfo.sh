@@ -1,4 +1,14 @@
-echo "Checking owner with phone=$1";
-# Emulating some heavy work... 
-sleep 1
+if [ $# -gt 0 ]; then
+  echo "Checking owner with phone=$1";
+  # Emulating some heavy work...
+  sleep 1
+  exit 0
+fi
+# Worker mode: reads one phone per line from stdin and answers with "<phone> <accounts count>" line
+while IFS= read -r phone; do
+  echo "Checking owner with phone=$phone" >&2;
+  # Emulating some heavy work...
+  sleep 1
+  echo "$phone 0"
+done
 exit 0
@@ -0,0 +1,64 @@
+package org.springframework.samples.petclinic.rest.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.util.sql.EnableQueryBudgets;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Base class for checking the REST endpoints against their query budgets. Unlike the {@code *RestControllerTests},
+ * which mock {@code ClinicService} out, these tests run the whole stack down to the database, so subclasses choose
+ * the repository layer with their active profiles.
+ *
+ * @author Vladimir Plizga
+ * @see EnableQueryBudgets
+ */
+@EnableQueryBudgets
+@WithMockUser(roles = {"OWNER_ADMIN", "VET_ADMIN"})
+abstract class AbstractEndpointQueryBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "/api/owners", "/api/owners?lastName=Davis", "/api/owners/1", "/api/owners/6/pets/7",
+        "/api/pets", "/api/pets/7",
+        "/api/visits", "/api/visits/1",
+        "/api/vets", "/api/vets/1",
+        "/api/specialties", "/api/specialties/1",
+        "/api/pettypes", "/api/pettypes/1"
+    })
+    void shouldReadWithinBudget(String uri) throws Exception {
+        mockMvc.perform(get(uri).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    void shouldAddOwnerWithinBudget() throws Exception {
+        String newOwner = """
+            {"firstName": "Sam", "lastName": "Schultz", "address": "4, Evans Street",
+             "city": "Wollongong", "telephone": "4444444444"}""";
+        mockMvc.perform(post("/api/owners").content(newOwner).contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isCreated());
+    }
+
+    @Test
+    @Transactional
+    void shouldAddVisitWithinBudget() throws Exception {
+        String newVisit = """
+            {"date": "2024-03-04", "description": "rabies shot"}""";
+        mockMvc.perform(post("/api/owners/6/pets/7/visits").content(newVisit).contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,18 @@
+package org.springframework.samples.petclinic.rest.controller;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "jpa"})
+@TestPropertySource(properties = {
+    "spring.sql.init.platform=h2",
+    "spring.h2.console.enabled=false",
+    "spring.datasource.url=jdbc:h2:mem:endpoint-budget-jpa-tests;DB_CLOSE_DELAY=-1"
+})
+class EndpointQueryBudgetH2JpaTests extends AbstractEndpointQueryBudgetTests {
+
+}
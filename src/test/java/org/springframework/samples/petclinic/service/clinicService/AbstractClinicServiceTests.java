@@ -20,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.*;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.sql.EnableQueryBudgets;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,7 +43,9 @@ import static org.assertj.core.api.Assertions.assertThat;
  * type</em>. <li><strong>Transaction management</strong>, meaning each test method is executed in its own transaction,
  * which is automatically rolled back by default. Thus, even if tests insert or otherwise change database state, there
  * is no need for a teardown or cleanup script. <li> An {@link org.springframework.context.ApplicationContext
- * ApplicationContext} is also inherited and can be used for explicit bean lookup if necessary. </li> </ul>
+ * ApplicationContext} is also inherited and can be used for explicit bean lookup if necessary. </li> </ul> <p> Every
+ * {@link ClinicService} method called by the tests must stay within its query budget, see {@link EnableQueryBudgets}.
+ * </p>
  *
  * @author Ken Krebs
  * @author Rod Johnson
@@ -51,6 +54,7 @@ import static org.assertj.core.api.Assertions.assertThat;
  * @author Michael Isvy
  * @author Vitaliy Fedoriv
  */
+@EnableQueryBudgets
 abstract class AbstractClinicServiceTests {
 
     @Autowired
@@ -284,6 +288,29 @@ abstract class AbstractClinicServiceTests {
         assertThat(visit).isNull();
     }
 
+    @Test
+    void shouldDeleteVisitInTransactionOfItsOwn() {
+        // not transactional: the deletion must survive the commit, not just a rolled back persistence context
+        Visit visit = new Visit();
+        visit.setPet(this.clinicService.findPetById(1));
+        visit.setDate(LocalDate.now());
+        visit.setDescription("visit to delete");
+        this.clinicService.saveVisit(visit);
+
+        this.clinicService.deleteVisit(this.clinicService.findVisitById(visit.getId()));
+
+        Visit deleted;
+        try {
+            deleted = this.clinicService.findVisitById(visit.getId());
+        } catch (Exception e) {
+            deleted = null;
+        }
+        assertThat(deleted).isNull();
+        assertThat(this.clinicService.findPetById(1).getVisits())
+            .extracting(Visit::getId)
+            .doesNotContain(visit.getId());
+    }
+
     @Test
     void shouldFindVetDyId(){
     	Vet vet = this.clinicService.findVetById(1);
@@ -355,6 +382,36 @@ abstract class AbstractClinicServiceTests {
         assertThat(owner).isNull();
     }
 
+    @Test
+    void shouldKeepSharedPetTypeOfDeletedOwner() {
+        // not transactional: the deletion must survive the commit, not just a rolled back persistence context
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName("Schultz");
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        this.clinicService.saveOwner(owner);
+        Pet pet = new Pet();
+        pet.setName("bowser");
+        pet.setType(this.clinicService.findPetTypeById(2));
+        pet.setBirthDate(LocalDate.now());
+        owner.addPet(pet);
+        this.clinicService.savePet(pet);
+
+        this.clinicService.deleteOwner(this.clinicService.findOwnerById(owner.getId()));
+
+        Pet deleted;
+        try {
+            deleted = this.clinicService.findPetById(pet.getId());
+        } catch (Exception e) {
+            deleted = null;
+        }
+        assertThat(deleted).isNull();
+        // Rosy is a dog too
+        assertThat(this.clinicService.findPetById(3).getType().getName()).isEqualTo("dog");
+    }
+
     @Test
     void shouldFindPetTypeById(){
     	PetType petType = this.clinicService.findPetTypeById(1);
@@ -30,7 +30,9 @@ import org.springframework.test.context.TestPropertySource;
 @ActiveProfiles({"h2", "jdbc"})
 @TestPropertySource(properties = {
     "spring.sql.init.platform=h2",
-    "spring.h2.console.enabled=false"
+    "spring.h2.console.enabled=false",
+    // the query budgets make the context differ from the other H2 tests' one, so it needs a database of its own
+    "spring.datasource.url=jdbc:h2:mem:clinic-service-tests;DB_CLOSE_DELAY=-1"
 })
 class ClinicServiceH2JdbcTests extends AbstractClinicServiceTests {
 
@@ -0,0 +1,110 @@
+package org.springframework.samples.petclinic.service.perf.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.perf.memory.PetColumnarCache.CachedPet;
+import org.springframework.samples.petclinic.service.perf.memory.PetColumnarCache.CachedVisit;
+
+/**
+ * Checks {@link PetColumnarCache} lookups, scans and footprint
+ *
+ * @author Vladimir Plizga
+ */
+class PetColumnarCacheTests {
+
+    private static final int MILLION = 1_000_000;
+
+    @Test
+    void shouldFindPetsAddedInAnyOrder() {
+        PetType cat = petType("cat");
+        Owner owner = new Owner();
+        owner.setId(10);
+        Pet leo = pet(7, "Leo", LocalDate.of(2020, 9, 7), cat, owner);
+        leo.addVisit(visit(LocalDate.of(2023, 3, 4), "rabies shot"));
+        leo.addVisit(visit(LocalDate.of(2024, 1, 2), "neutered"));
+        Pet max = pet(3, "Max", LocalDate.of(2012, 9, 4), cat, owner);
+        Pet stray = pet(5, "Stray", null, null, null);
+
+        PetColumnarCache cache = PetColumnarCache.of(List.of(leo, max, stray));
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.visitsCount()).isEqualTo(2);
+        // visits keep the order of Pet.getVisits(), i.e. the latest first
+        assertThat(cache.find(7)).contains(new CachedPet(7, "Leo", LocalDate.of(2020, 9, 7), "cat", 10, List.of(
+            new CachedVisit(LocalDate.of(2024, 1, 2), "neutered"),
+            new CachedVisit(LocalDate.of(2023, 3, 4), "rabies shot"))));
+        assertThat(cache.find(3)).contains(new CachedPet(3, "Max", LocalDate.of(2012, 9, 4), "cat", 10, List.of()));
+        assertThat(cache.find(5)).contains(new CachedPet(5, "Stray", null, null, null, List.of()));
+        assertThat(cache.find(4)).isEmpty();
+    }
+
+    @Test
+    void shouldScanColumns() {
+        PetColumnarCache cache = new PetColumnarCache.Builder()
+            .addPet(30, "Leo", LocalDate.of(2010, 1, 1), "cat", 1)
+            .addPet(10, "Rosy", LocalDate.of(2011, 1, 1), "dog", 1)
+            .addPet(20, "Basil", LocalDate.of(2012, 1, 1), "cat", 2)
+            .addPet(40, "Jewel", null, "cat", 2)
+            .build();
+
+        assertThat(cache.findIdsByType("cat")).containsExactly(20, 30, 40);
+        assertThat(cache.findIdsByType("lizard")).isEmpty();
+        assertThat(cache.countBornBetween(LocalDate.of(2010, 1, 1), LocalDate.of(2011, 1, 1))).isEqualTo(2);
+        assertThat(PetColumnarCache.EMPTY.findIdsByType("cat")).isEmpty();
+    }
+
+    @Test
+    void shouldKeepMillionPetsCompact() {
+        PetColumnarCache cache = buildCache(MILLION);
+
+        assertThat(cache.size()).isEqualTo(MILLION);
+        assertThat(cache.visitsCount()).isEqualTo(2 * MILLION);
+        assertThat(cache.find(MILLION / 2)).hasValueSatisfying(pet -> assertThat(pet.visits()).hasSize(2));
+        // 5 pet columns + 1 visit offset + 2 visits of 2 columns each, 4 bytes per value
+        assertThat(cache.footprintBytes()).isLessThan(48L * MILLION);
+    }
+
+    private static PetColumnarCache buildCache(int petsCount) {
+        List<String> types = List.of("cat", "dog", "lizard", "snake", "bird", "hamster");
+        PetColumnarCache.Builder builder = new PetColumnarCache.Builder();
+        LocalDate firstDate = LocalDate.of(2000, 1, 1);
+        for (int id = 1; id <= petsCount; id++) {
+            builder.addPet(id, "Pet" + (id % 1000), firstDate.plusDays(id % 7000), types.get(id % types.size()),
+                id / 2);
+            builder.addVisit(firstDate.plusDays(id % 9000), "checkup");
+            builder.addVisit(firstDate.plusDays(id % 9000 + 30), "visit #" + (id % 50));
+        }
+        return builder.build();
+    }
+
+    private static PetType petType(String name) {
+        PetType petType = new PetType();
+        petType.setName(name);
+        return petType;
+    }
+
+    private static Pet pet(int id, String name, LocalDate birthDate, PetType type, Owner owner) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName(name);
+        pet.setBirthDate(birthDate);
+        pet.setType(type);
+        pet.setOwner(owner);
+        return pet;
+    }
+
+    private static Visit visit(LocalDate date, String description) {
+        Visit visit = new Visit();
+        visit.setDate(date);
+        visit.setDescription(description);
+        return visit;
+    }
+}
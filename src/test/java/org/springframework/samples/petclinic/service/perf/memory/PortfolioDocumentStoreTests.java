@@ -0,0 +1,66 @@
+package org.springframework.samples.petclinic.service.perf.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.samples.petclinic.service.perf.memory.PortfolioDocumentStore.DocumentPage;
+
+/**
+ * Checks {@link PortfolioDocumentStore} pages, including the ones of documents accessed concurrently for the first time
+ *
+ * @author Vladimir Plizga
+ */
+class PortfolioDocumentStoreTests {
+
+    private static final int THREADS_COUNT = 8;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void shouldSplitDocumentIntoPages() {
+        PortfolioDocumentStore store = new PortfolioDocumentStore(dataDir, 64);
+
+        List<DocumentPage> pages = store.findPages(1);
+
+        assertThat(pages).hasSize(8).allSatisfy(page -> assertThat(page.length()).isEqualTo(1 << 20));
+        assertThat(store.open(pages.get(7)).remaining()).isEqualTo(1 << 20);
+        assertThat(store.findPages(1)).isEqualTo(pages);
+    }
+
+    @Test
+    void shouldNeverSeeIncompleteDocument() throws Exception {
+        PortfolioDocumentStore store = new PortfolioDocumentStore(dataDir, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        try {
+            for (int vetId = 1; vetId <= 20; vetId++) {
+                int id = vetId;
+                CyclicBarrier firstAccess = new CyclicBarrier(THREADS_COUNT);
+                List<Future<List<DocumentPage>>> lookups = new ArrayList<>();
+                for (int i = 0; i < THREADS_COUNT; i++) {
+                    lookups.add(executor.submit(() -> {
+                        firstAccess.await();
+                        return store.findPages(id);
+                    }));
+                }
+                for (Future<List<DocumentPage>> lookup : lookups) {
+                    assertThat(lookup.get()).hasSize(8);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        // no temporary files are left behind
+        assertThat(dataDir.toFile().list()).hasSize(20).allMatch(name -> name.endsWith(".scan"));
+    }
+}
@@ -0,0 +1,82 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.samples.petclinic.service.perf.profile.DrugCompatibilityIndex.Compatibility;
+
+/**
+ * Checks {@link DrugCompatibilityIndex} age bucketing and counting of distinct drugs
+ *
+ * @author Vladimir Plizga
+ */
+class DrugCompatibilityIndexTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    @Test
+    void shouldAllowDrugsOfBucketsUpToPetAge() {
+        Map<String, Integer> minAges = Map.of("Aspirin", 0, "Ibuprofen", 3, "Paracetamol", 3, "Morphine", 10);
+        DrugCompatibilityIndex index = new DrugCompatibilityIndex(
+            List.of("Morphine", "Ibuprofen", "Aspirin", "Paracetamol"), minAges::get);
+
+        Compatibility compatibility = index.evaluate(List.of(
+            pet(TODAY),                         // born today, younger than any bucket allows
+            pet(TODAY.minusMonths(5)),          // 0 years
+            pet(TODAY.minusYears(3)),           // exactly 3 years, not older than required yet
+            pet(TODAY.minusYears(4)),           // 0 and 3 years
+            pet(TODAY.minusYears(14))), TODAY); // all the buckets
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(compatibility.compatiblePairs()).isEqualTo(0 + 1 + 1 + 3 + 4);
+        assertThat(compatibility.compatibleDrugs())
+            .containsExactlyInAnyOrder("Aspirin", "Ibuprofen", "Paracetamol", "Morphine");
+    }
+
+    @Test
+    void shouldNotAllowDrugsOfOlderBuckets() {
+        DrugCompatibilityIndex index = new DrugCompatibilityIndex(List.of("Aspirin", "Morphine"),
+            drug -> drug.equals("Aspirin") ? 3 : 10);
+
+        Compatibility compatibility = index.evaluate(List.of(pet(TODAY.minusYears(5))), TODAY);
+
+        assertThat(compatibility.compatiblePairs()).isEqualTo(1);
+        assertThat(compatibility.compatibleDrugs()).containsExactly("Aspirin");
+    }
+
+    @Test
+    void shouldCountDuplicateDrugsOnce() {
+        DrugCompatibilityIndex index = new DrugCompatibilityIndex(List.of("Aspirin", "Ibuprofen", "Aspirin"),
+            drug -> 3);
+
+        Compatibility compatibility = index.evaluate(List.of(pet(TODAY.minusYears(5)), pet(TODAY.minusYears(8))),
+            TODAY);
+
+        // unlike the former nested loops, which counted every occurrence of a drug in the list
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(compatibility.compatiblePairs()).isEqualTo(4);
+        assertThat(compatibility.compatibleDrugs()).containsExactlyInAnyOrder("Aspirin", "Ibuprofen");
+    }
+
+    @Test
+    void shouldFindNothingWithoutDrugs() {
+        DrugCompatibilityIndex index = new DrugCompatibilityIndex(List.of(), drug -> 3);
+
+        Compatibility compatibility = index.evaluate(List.of(pet(TODAY.minusYears(5))), TODAY);
+
+        assertThat(index.size()).isZero();
+        assertThat(compatibility.compatiblePairs()).isZero();
+        assertThat(compatibility.compatibleDrugs()).isEmpty();
+    }
+
+    private static PetDto pet(LocalDate birthDate) {
+        PetDto pet = new PetDto();
+        pet.setBirthDate(birthDate);
+        return pet;
+    }
+}
@@ -0,0 +1,61 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+
+/**
+ * Checks {@link PedigreeStrengthEngine} bookkeeping of pets with arbitrary ids
+ *
+ * @author Vladimir Plizga
+ */
+class PedigreeStrengthEngineTests {
+
+    private static final int LINEAGE_DEPTH = 10;
+    private static final long STRENGTH = PedigreeStrengthEngine.countAncestors(LINEAGE_DEPTH);
+
+    @Test
+    void shouldKeepNonContiguousAndNegativeIds() {
+        PedigreeStrengthEngine engine = new PedigreeStrengthEngine(LINEAGE_DEPTH);
+        List<PetDto> pets = List.of(pet(-7, "Leo"), pet(0, "Basil"), pet(3, "Rosy"), pet(1_000_003, "Jewel"),
+            pet(Integer.MAX_VALUE, "Iggy"), pet(Integer.MIN_VALUE, "Max"));
+
+        assertThat(engine.update(pets)).isEqualTo(6);
+
+        assertThat(engine.size()).isEqualTo(6);
+        for (PetDto pet : pets) {
+            assertThat(engine.getStrength(pet.getId())).hasValue(STRENGTH);
+        }
+        assertThat(engine.getStrength(-8)).isEmpty();
+        assertThat(engine.getStrength(1_000_004)).isEmpty();
+        // nothing has changed, so nothing is recomputed
+        assertThat(engine.update(pets)).isZero();
+    }
+
+    @Test
+    void shouldRecomputeOnlyChangedPetsWhileGrowing() {
+        PedigreeStrengthEngine engine = new PedigreeStrengthEngine(LINEAGE_DEPTH);
+        List<PetDto> pets = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            pets.add(pet(i * 7919, "Pet" + i));      // sparse ids spread over tens of millions
+        }
+        assertThat(engine.update(pets)).isEqualTo(10_000);
+
+        pets.set(42, pet(42 * 7919, "Renamed"));
+        pets.add(pet(-1, "Newcomer"));
+
+        assertThat(engine.update(pets)).isEqualTo(2);
+        assertThat(engine.size()).isEqualTo(10_001);
+        assertThat(engine.getStrength(9_999 * 7919)).hasValue(STRENGTH);
+        assertThat(engine.getStrength(1)).isEmpty();
+    }
+
+    private static PetDto pet(int id, String name) {
+        return new PetDto().id(id).name(name).birthDate(LocalDate.of(2020, 1, 1));
+    }
+}
@@ -0,0 +1,61 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks {@link PetUniqueIdRegistry} lookups and eviction
+ *
+ * @author Vladimir Plizga
+ */
+class PetUniqueIdRegistryTests {
+
+    @Test
+    void shouldFindRegisteredIds() {
+        PetUniqueIdRegistry registry = new PetUniqueIdRegistry(64);
+        registry.register(1, "Leo");
+        registry.register(2, null);
+        registry.register(1, "Aa");
+        registry.register(1, "Leo");
+
+        assertThat(registry.size()).isEqualTo(3);
+        assertThat(registry.contains(1, "Leo")).isTrue();
+        assertThat(registry.contains(2, null)).isTrue();
+        assertThat(registry.contains(1, "Aa")).isTrue();
+        // "BB" has the same hash code as "Aa"
+        assertThat(registry.contains(1, "BB")).isFalse();
+        assertThat(registry.contains(2, "Leo")).isFalse();
+        assertThat(registry.contains(1, null)).isFalse();
+        assertThat(registry.toReadableIds()).containsExactlyInAnyOrder("Leo::1", "null::2", "Aa::1");
+    }
+
+    @Test
+    void shouldEvictEldestIds() {
+        PetUniqueIdRegistry registry = new PetUniqueIdRegistry(64);
+        for (int id = -5_000; id < 5_000; id++) {
+            registry.register(id, "Leo");
+        }
+
+        assertThat(registry.size()).isLessThanOrEqualTo(64);
+        assertThat(registry.evictionCount()).isEqualTo(10_000 - registry.size());
+        assertThat(registry.contains(-5_000, "Leo")).isFalse();
+        assertThat(registry.contains(4_999, "Leo")).isTrue();
+        assertThat(registry.toReadableIds()).hasSize(registry.size()).contains("Leo::4999");
+    }
+
+    @Test
+    void shouldStayBoundedWithManyDistinctNames() {
+        PetUniqueIdRegistry registry = new PetUniqueIdRegistry(1024);
+        for (int id = 0; id < 100_000; id++) {
+            registry.register(id, "Pet" + id);
+        }
+
+        // the stripes are the only holders of the names, so no more names than the capacity are retained
+        assertThat(registry.size()).isEqualTo(1024);
+        assertThat(registry.evictionCount()).isEqualTo(100_000 - 1024);
+        assertThat(registry.contains(99_999, "Pet99999")).isTrue();
+        assertThat(registry.contains(0, "Pet0")).isFalse();
+        assertThat(registry.toReadableIds()).hasSize(1024).doesNotContain("Pet0::0");
+    }
+}
@@ -0,0 +1,97 @@
+package org.springframework.samples.petclinic.service.perf.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks {@link SpecialNameDetector} against the regular expression it replaces
+ *
+ * @author Vladimir Plizga
+ */
+class SpecialNameDetectorTests {
+
+    private static final Pattern SPECIAL_NAME_PATTERN = Pattern.compile("^(\\w+\\s?)*$");
+
+    /**
+     * Word, space and other characters, including ones that are word/space in Unicode but not in default regex mode
+     */
+    private static final char[] ALPHABET = {'a', 'Z', '0', '_', ' ', '\t', '\n', '\r', '\u000B', '!', '-', 'é', ' '};
+
+    /**
+     * Keeps the reference regex from catastrophic backtracking
+     */
+    private static final int MAX_FUZZ_TEXT_LENGTH = 14;
+
+    /**
+     * Fixed, so that a failure of the fuzzing is reproducible
+     */
+    private static final long FUZZ_SEED = 20_240_601L;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "Leo", "Leo Max", "Leo Max ", "Leo  Max", " Leo", "Leo\r\n", "Leo\n", "Leo!", "!",
+        "LeoLeoLeoBasilBasilBasil!", "Rosy Jewel_1 George"})
+    void shouldMatchLikeRegex(String text) {
+        assertSameAsRegex(text, 1);
+    }
+
+    @Test
+    void shouldMatchLikeRegexOnRandomTexts() {
+        Random random = new Random(FUZZ_SEED);
+        for (int iteration = 0; iteration < 50_000; iteration++) {
+            char[] chars = new char[random.nextInt(MAX_FUZZ_TEXT_LENGTH + 1)];
+            for (int i = 0; i < chars.length; i++) {
+                // prefer word characters to get longer matching prefixes
+                chars[i] = random.nextInt(3) == 0
+                    ? ALPHABET[random.nextInt(ALPHABET.length)]
+                    : ALPHABET[random.nextInt(4)];
+            }
+            String text = new String(chars);
+            assertSameAsRegex(text, 1 + random.nextInt(4));
+        }
+    }
+
+    @Test
+    void shouldCheckPetNamesInLinearTime() {
+        // takes forever with the regex
+        SpecialNameDetector detector = new SpecialNameDetector();
+        for (int i = 0; i < 100_000; i++) {
+            detector.feed("Bruno");
+        }
+        assertThat(detector.matches()).isTrue();
+
+        detector.feed("!");
+        assertThat(detector.matches()).isFalse();
+        assertThat(detector.lastGroup()).isEmpty();
+    }
+
+    private static void assertSameAsRegex(String text, int pieceCount) {
+        Matcher matcher = SPECIAL_NAME_PATTERN.matcher(text);
+        SpecialNameDetector detector = detect(text, pieceCount);
+        boolean matches = matcher.matches();
+
+        assertThat(detector.matches()).as("Matching of '%s'", text).isEqualTo(matches);
+        Optional<String> expectedGroup = matches ? Optional.ofNullable(matcher.group(1)) : Optional.empty();
+        assertThat(detector.lastGroup()).as("Group of '%s'", text).isEqualTo(expectedGroup);
+    }
+
+    /**
+     * Feeds the text to a new detector split into given number of (possibly empty) pieces
+     */
+    private static SpecialNameDetector detect(String text, int pieceCount) {
+        SpecialNameDetector detector = new SpecialNameDetector();
+        int pieceLength = Math.ceilDiv(text.length(), pieceCount);
+        for (int i = 0; i < pieceCount; i++) {
+            int from = Math.min(i * pieceLength, text.length());
+            detector.feed(text.substring(from, Math.min(from + pieceLength, text.length())));
+        }
+        return detector;
+    }
+}
@@ -0,0 +1,51 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the JMX attributes and the metrics published by {@link CallMonitoringAspect}
+ *
+ * @author Vladimir Plizga
+ */
+class CallMonitoringAspectTests {
+
+    private final MockClock clock = new MockClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    private final CallMonitoringAspect aspect = new CallMonitoringAspect(meterRegistry);
+
+    @Test
+    void shouldKeepLegacyAttributesAlongWithPreciseOnes() throws Exception {
+        Method method = Object.class.getMethod("toString");
+        aspect.record(method, Duration.ofMillis(2).toNanos());
+        aspect.record(method, Duration.ofMillis(3).toNanos());
+
+        assertThat(aspect.getCallCount()).isEqualTo(2);
+        assertThat(aspect.getCallTime()).isEqualTo(2L);
+        assertThat(aspect.getTotalCallCount()).isEqualTo(2L);
+        assertThat(aspect.getAverageCallTime()).isEqualTo(2.5);
+    }
+
+    @Test
+    void shouldDecayPublishedMaximum() throws Exception {
+        aspect.record(Object.class.getMethod("toString"), Duration.ofMillis(5).toNanos());
+
+        assertThat(meterRegistry.get("petclinic.repository.calls.max").timeGauge().value(TimeUnit.MILLISECONDS))
+            .isEqualTo(5.0);
+
+        clock.add(Duration.ofMinutes(10));
+
+        assertThat(meterRegistry.get("petclinic.repository.calls.max").timeGauge().value(TimeUnit.MILLISECONDS))
+            .isZero();
+        // the JMX statistics still report the maximum since the last reset
+        assertThat(aspect.getMethodStatistics()).singleElement().asString().endsWith("max=5000.0");
+    }
+}
@@ -0,0 +1,65 @@
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Checks that {@link RequestResourcesFilter} attributes allocations and CPU time to the routes
+ *
+ * @author Vladimir Plizga
+ */
+class RequestResourcesFilterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestResourcesFilter filter = new RequestResourcesFilter(meterRegistry);
+
+    private byte[] payload;
+
+    @Test
+    void shouldAccountRequestsPerRoute() throws Exception {
+        for (int petId = 1; petId <= 2; petId++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pets/" + petId);
+            // pretends to be the dispatcher resolving the URI pattern and allocating a megabyte
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/pets/{petId}");
+                payload = new byte[1 << 20];
+            });
+        }
+
+        DistributionSummary allocated = meterRegistry.get("petclinic.http.requests.allocated")
+            .tags("method", "GET", "uri", "/api/pets/{petId}")
+            .summary();
+        assertThat(allocated.count()).isEqualTo(2);
+        assertThat(allocated.max()).isGreaterThanOrEqualTo(1 << 20);
+        Timer cpuTime = meterRegistry.get("petclinic.http.requests.cpu")
+            .tags("method", "GET", "uri", "/api/pets/{petId}")
+            .timer();
+        assertThat(cpuTime.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBoundNumberOfRouteMeters() throws Exception {
+        for (int i = 0; i < 2_000; i++) {
+            String uri = "/api/things/" + i;
+            filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), (req, res) ->
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, uri));
+        }
+        for (int i = 0; i < 100; i++) {
+            filter.doFilter(new MockHttpServletRequest("METHOD" + i, "/"), new MockHttpServletResponse(),
+                (req, res) -> { });
+        }
+
+        // 1000 distinct routes and the shared "other" one
+        assertThat(meterRegistry.find("petclinic.http.requests.allocated").summaries()).hasSize(1_001);
+        assertThat(meterRegistry.find("petclinic.http.requests.cpu").timers()).hasSize(1_001);
+        assertThat(meterRegistry.get("petclinic.http.requests.cpu").tags("method", "other", "uri", "other").timer()
+            .count()).isEqualTo(1_100);
+    }
+}
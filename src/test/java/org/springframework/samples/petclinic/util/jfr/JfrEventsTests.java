@@ -0,0 +1,91 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+
+/**
+ * Checks that the application events are recorded with their fields filled in
+ *
+ * @author Vladimir Plizga
+ */
+class JfrEventsTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRecordOperationWithItsAllocations() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            PetListStageEvent event = new PetListStageEvent();
+            event.start();
+            byte[] garbage = new byte[1 << 20];
+            event.complete("allocate", garbage.length);
+        });
+
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("petclinic.PetListStage");
+            assertThat(event.getString("stage")).isEqualTo("allocate");
+            assertThat(event.getInt("pets")).isEqualTo(1 << 20);
+            assertThat(event.getLong("allocated")).isGreaterThanOrEqualTo(1 << 20);
+        });
+    }
+
+    @Test
+    void shouldRecordCacheAccess() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            CacheAccessEvent.record("pets", true);
+            CacheAccessEvent.record("owners", 3, 2);
+        });
+
+        assertThat(events)
+            .extracting(event -> event.getString("cache") + ":" + event.getInt("hits") + "/" + event.getInt("misses"))
+            .containsExactly("pets:1/0", "owners:3/2");
+    }
+
+    @Test
+    void shouldRecordFailedRepositoryCall() throws Exception {
+        PetTypeRepository repository = mock(PetTypeRepository.class);
+        when(repository.findAll()).thenThrow(new DataRetrievalFailureException("Database is down"));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(repository);
+        proxyFactory.addAspect(new JfrEventsAspect());
+        PetTypeRepository recordedRepository = proxyFactory.getProxy();
+
+        List<RecordedEvent> events = record(() -> assertThatThrownBy(recordedRepository::findAll)
+            .isInstanceOf(DataRetrievalFailureException.class));
+
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getEventType().getName()).isEqualTo("petclinic.RepositoryCall");
+            assertThat(event.getString("method")).isEqualTo("findAll");
+            assertThat(event.getInt("rows")).isZero();
+        });
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws Exception {
+        Path dump = tempDir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PetListStageEvent.class).withoutStackTrace();
+            recording.enable(CacheAccessEvent.class).withoutStackTrace();
+            recording.enable(RepositoryCallEvent.class).withoutStackTrace();
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump);
+    }
+}
@@ -0,0 +1,93 @@
+package org.springframework.samples.petclinic.util.jfr;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that {@link RecordingSummary} attributes allocation samples to their sites
+ *
+ * @author Vladimir Plizga
+ */
+class RecordingSummaryTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSummarizeAllocationSites() throws Exception {
+        Path dump = tempDir.resolve("recording-test.jfr");
+        List<long[]> retained = new ArrayList<>();
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ObjectAllocationSample").with("throttle", "off").withStackTrace();
+            recording.start();
+            for (int i = 0; i < 1_000; i++) {
+                retained.add(new long[1024]);
+            }
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        RecordingSummary summary = RecordingSummary.of(dump, 5);
+
+        assertThat(retained).hasSize(1_000);
+        assertThat(summary.file()).isEqualTo("recording-test.jfr");
+        assertThat(summary.eventsCount()).isPositive();
+        assertThat(summary.topAllocationSites()).isNotEmpty().hasSizeLessThanOrEqualTo(5);
+        assertThat(summary.topAllocationSites())
+            .extracting(RecordingSummary.Entry::frame)
+            .anySatisfy(frame -> assertThat(frame)
+                .startsWith("long[] at " + RecordingSummaryTests.class.getName() + ".shouldSummarizeAllocationSites:"));
+    }
+
+    @Test
+    void shouldSummarizeContentionByBlockingSiteWithoutIdlePoolThreads() throws Exception {
+        Path dump = tempDir.resolve("recording-test.jfr");
+        ReentrantLock lock = new ReentrantLock();
+        ExecutorService idlePool = Executors.newFixedThreadPool(1);
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ThreadPark").withThreshold(Duration.ofMillis(10)).withStackTrace();
+            recording.start();
+            idlePool.submit(() -> { }).get();       // the pool thread keeps waiting for work from now on
+            Thread contender = new Thread(() -> lockAndUnlock(lock));
+            lock.lock();
+            try {
+                contender.start();
+                Thread.sleep(200);
+            }
+            finally {
+                lock.unlock();
+            }
+            contender.join();
+            idlePool.shutdownNow();     // ends the wait of the pool thread, so that it's recorded
+            idlePool.awaitTermination(1, SECONDS);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        RecordingSummary summary = RecordingSummary.of(dump, 5);
+
+        assertThat(summary.lockContention())
+            .extracting(RecordingSummary.Entry::frame)
+            .anySatisfy(frame -> assertThat(frame)
+                .startsWith("park " + ReentrantLock.class.getName() + "$NonfairSync at "
+                    + RecordingSummaryTests.class.getName() + ".lockAndUnlock:"))
+            .noneSatisfy(frame -> assertThat(frame).contains("ConditionObject"));
+    }
+
+    private static void lockAndUnlock(ReentrantLock lock) {
+        lock.lock();
+        lock.unlock();
+    }
+}
@@ -0,0 +1,132 @@
+package org.springframework.samples.petclinic.util.seed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks the reproducibility and the shape of {@link SyntheticDataGenerator} output
+ *
+ * @author Vladimir Plizga
+ */
+class SyntheticDataGeneratorTests {
+
+    private static final int[] TYPE_IDS = {1, 2, 3, 4, 5, 6};
+    private static final int[] SPECIALTY_IDS = {1, 2, 3};
+
+    @Test
+    void shouldGenerateSameRowsRegardlessOfChunks() {
+        SyntheticDataset dataset = new SyntheticDataset(7, 1_000, 50, 2.0, 3.0);
+
+        RecordingSink whole = new RecordingSink();
+        new SyntheticDataGenerator(dataset).generateOwners(0, 1_000, TYPE_IDS, whole);
+        new SyntheticDataGenerator(dataset).generateVets(0, 50, SPECIALTY_IDS, whole);
+
+        RecordingSink chunked = new RecordingSink();
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(dataset);
+        generator.generateOwners(0, 400, TYPE_IDS, chunked);
+        generator.generateOwners(400, 1_000, TYPE_IDS, chunked);
+        generator.generateVets(0, 20, SPECIALTY_IDS, chunked);
+        generator.generateVets(20, 50, SPECIALTY_IDS, chunked);
+
+        assertThat(chunked.rows).isEqualTo(whole.rows);
+
+        RecordingSink otherSeed = new RecordingSink();
+        new SyntheticDataGenerator(new SyntheticDataset(8, 1_000, 50, 2.0, 3.0))
+            .generateOwners(0, 1_000, TYPE_IDS, otherSeed);
+        assertThat(otherSeed.rows).isNotEqualTo(whole.rows.subList(0, otherSeed.rows.size()));
+    }
+
+    @Test
+    void shouldFollowRequestedMeansWithSkew() {
+        RecordingSink sink = new RecordingSink();
+        new SyntheticDataGenerator(new SyntheticDataset(42, 20_000, 0, 2.0, 3.0))
+            .generateOwners(0, 20_000, TYPE_IDS, sink);
+
+        assertThat((double) sink.petsCount / 20_000).isCloseTo(2.0, within(0.1));
+        assertThat((double) sink.visitsCount / sink.petsCount).isCloseTo(3.0, within(0.15));
+        // the most common pet type outnumbers the least common one many times
+        assertThat(sink.petsByType.get(TYPE_IDS[0])).isGreaterThan(5 * sink.petsByType.get(TYPE_IDS[5]));
+        assertThat(sink.lastVisitDate).isBefore(SyntheticDataGenerator.REFERENCE_DATE);
+    }
+
+    @Test
+    void shouldCountRowsWithoutGeneratingThem() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(new SyntheticDataset(42, 5_000, 0,
+            3.0, CountDistribution.POISSON, 2.5, CountDistribution.UNIFORM));
+        RecordingSink sink = new RecordingSink();
+        generator.generateOwners(1_000, 3_000, TYPE_IDS, sink);
+
+        SyntheticDataGenerator.Counts counts = generator.countOwners(1_000, 2_000)
+            .plus(generator.countOwners(2_000, 3_000));
+
+        assertThat(counts).isEqualTo(new SyntheticDataGenerator.Counts(2_000, sink.petsCount, sink.visitsCount));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CountDistribution.class)
+    void shouldKeepMeanOfEveryDistribution(CountDistribution distribution) {
+        SplittableRandom random = new SplittableRandom(42);
+        // twice 2.5 is a whole upper bound for UNIFORM, twice the others are not
+        for (double mean : new double[] {2.5, 1.3, 0.3}) {
+            long sum = 0;
+            for (int i = 0; i < 100_000; i++) {
+                sum += distribution.next(random, mean);
+            }
+            assertThat(sum / 100_000.0).as("mean of %s", mean).isCloseTo(mean, within(0.05));
+        }
+        assertThat(distribution.next(random, 0)).isZero();
+    }
+
+    private static class RecordingSink implements SyntheticDataGenerator.RowSink {
+        private final List<String> rows = new ArrayList<>();
+        private final Map<Integer, Integer> petsByType = new HashMap<>();
+        private int petsCount;
+        private int visitsCount;
+        private LocalDate lastVisitDate = LocalDate.MIN;
+
+        @Override
+        public void owner(int ownerIndex, String firstName, String lastName, String address, String city,
+                          String telephone) {
+            rows.add(String.join("|", "owner", String.valueOf(ownerIndex), firstName, lastName, address, city,
+                telephone));
+        }
+
+        @Override
+        public int pet(int ownerIndex, String name, LocalDate birthDate, int typeId) {
+            rows.add(String.join("|", "pet", String.valueOf(ownerIndex), name, birthDate.toString(),
+                String.valueOf(typeId)));
+            petsByType.merge(typeId, 1, Integer::sum);
+            return petsCount++;
+        }
+
+        @Override
+        public void visit(int petIndex, LocalDate date, String description) {
+            rows.add(String.join("|", "visit", String.valueOf(petIndex), date.toString(), description));
+            visitsCount++;
+            if (date.isAfter(lastVisitDate)) {
+                lastVisitDate = date;
+            }
+        }
+
+        @Override
+        public void vet(int vetIndex, String firstName, String lastName) {
+            rows.add(String.join("|", "vet", String.valueOf(vetIndex), firstName, lastName));
+        }
+
+        @Override
+        public void vetSpecialty(int vetIndex, int specialtyId) {
+            rows.add(String.join("|", "specialty", String.valueOf(vetIndex), String.valueOf(specialtyId)));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.springframework.samples.petclinic.util.seed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Checks that {@link SyntheticDataSeeder} either seeds the whole synthetic clinic or leaves the database as it was
+ *
+ * @author Vladimir Plizga
+ */
+class SyntheticDataSeederTests {
+
+    private static final List<String> TABLES = List.of("owners", "pets", "visits", "vets", "vet_specialties");
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+        .setType(EmbeddedDatabaseType.H2)
+        .generateUniqueName(true)
+        .addScripts("db/h2/schema.sql", "db/h2/data.sql")
+        .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    @AfterEach
+    void shutDownDatabase() {
+        database.shutdown();
+    }
+
+    @Test
+    void shouldSeedAllChunks() throws Exception {
+        long ownersBefore = count("owners");
+
+        seeder(25_000, 10).run(null);
+
+        assertThat(count("owners")).isEqualTo(ownersBefore + 25_000);
+        assertThat(count("vets")).isGreaterThanOrEqualTo(10);
+        // the identities continue past the seeded rows
+        jdbcTemplate.update("INSERT INTO owners (first_name, last_name, address, city, telephone) " +
+            "VALUES ('Sam', 'Schultz', '4, Evans Street', 'Wollongong', '4444444444')");
+        assertThat(count("owners")).isEqualTo(ownersBefore + 25_001);
+    }
+
+    @Test
+    void shouldDeleteAllChunksOnFailure() {
+        List<Long> countsBefore = TABLES.stream().map(this::count).toList();
+        // lets the first chunk through while the second one fails after committing a few batches
+        int firstSeededId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class) + 1;
+        jdbcTemplate.execute("ALTER TABLE owners ADD CONSTRAINT few_owners CHECK (id < %d)"
+            .formatted(firstSeededId + 15_000));
+
+        assertThatThrownBy(() -> seeder(25_000, 10).run(null))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Failed to seed synthetic data");
+
+        assertThat(TABLES.stream().map(this::count).toList()).isEqualTo(countsBefore);
+    }
+
+    private SyntheticDataSeeder seeder(int owners, int vets) {
+        return new SyntheticDataSeeder(jdbcTemplate, "h2", owners, vets, 2.0, CountDistribution.GEOMETRIC, 3.0,
+            CountDistribution.GEOMETRIC, 42, 2);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
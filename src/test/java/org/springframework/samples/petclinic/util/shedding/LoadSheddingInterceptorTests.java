@@ -0,0 +1,74 @@
+package org.springframework.samples.petclinic.util.shedding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.util.shedding.HeapPressureMonitor.Pressure;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Checks that {@link LoadSheddingInterceptor} sheds the expensive endpoints first as the heap pressure grows
+ *
+ * @author Vladimir Plizga
+ */
+class LoadSheddingInterceptorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // not subscribed to the real collections, fed with the made up ones instead
+    private final HeapPressureMonitor monitor = new HeapPressureMonitor(meterRegistry, 0.75, 0.9, 0.1, 0.25,
+        Duration.ofSeconds(10));
+    private final LoadSheddingInterceptor interceptor = new LoadSheddingInterceptor(monitor, meterRegistry,
+        Duration.ofSeconds(15), true);
+
+    @Test
+    void shouldAdmitEverythingWithoutPressure() {
+        monitor.recordCollection(System.nanoTime(), 1_000_000, 0.5);
+
+        assertThat(monitor.pressure()).isEqualTo(Pressure.NORMAL);
+        assertThat(admits("GET", "/api/pets/{petId}/diagnostics")).isTrue();
+        assertThat(admits("GET", "/api/pets")).isTrue();
+    }
+
+    @Test
+    void shouldShedHeaviestEndpointsUnderElevatedPressure() {
+        monitor.recordCollection(System.nanoTime(), 1_000_000, 0.8);
+
+        assertThat(monitor.pressure()).isEqualTo(Pressure.ELEVATED);
+        assertThat(admits("GET", "/api/pets/{petId}/diagnostics")).isFalse();
+        assertThat(admits("GET", "/api/vets/{vetId}")).isFalse();
+        assertThat(admits("GET", "/api/pets")).isTrue();
+        assertThat(admits("GET", "/api/pets/{petId}")).isTrue();
+        assertThat(meterRegistry.get("petclinic.shedding.rejected").tag("pressure", "ELEVATED").counters())
+            .extracting(counter -> counter.getId().getTag("uri"))
+            .containsExactlyInAnyOrder("/api/pets/{petId}/diagnostics", "/api/vets/{vetId}");
+    }
+
+    @Test
+    void shouldShedListsUnderCriticalPressure() {
+        // 3 s of pauses within the 10 s window
+        monitor.recordCollection(System.nanoTime(), 3_000_000_000L, 0.5);
+
+        assertThat(monitor.pressure()).isEqualTo(Pressure.CRITICAL);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("GET", "/api/owners"), response, new Object())).isFalse();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("15");
+        assertThat(admits("GET", "/api/owners/{ownerId}")).isTrue();
+        assertThat(admits("PUT", "/api/owners/{ownerId}")).isTrue();
+    }
+
+    private boolean admits(String method, String uriPattern) {
+        return interceptor.preHandle(request(method, uriPattern), new MockHttpServletResponse(), new Object());
+    }
+
+    private static MockHttpServletRequest request(String method, String uriPattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uriPattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, uriPattern);
+        return request;
+    }
+}
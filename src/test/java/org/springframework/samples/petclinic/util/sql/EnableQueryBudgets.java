@@ -0,0 +1,27 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Makes a Spring test class fail whenever a {@code ClinicService} method or a REST endpoint invoked by its tests
+ * executes more JDBC statements (or loads more Hibernate entities) than declared in {@value QueryBudgets#LOCATION}.
+ *
+ * @author Vladimir Plizga
+ * @see QueryBudgetVerifier
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@ExtendWith(QueryBudgetExtension.class)
+@Import(QueryBudgetConfig.class)
+public @interface EnableQueryBudgets {
+}
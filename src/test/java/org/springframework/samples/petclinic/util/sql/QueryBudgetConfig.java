@@ -0,0 +1,93 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import javax.sql.DataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.sql.QueryBudgetVerifier.Cost;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * Test configuration measuring the cost of {@link ClinicService} methods and REST endpoints with
+ * {@link QueryBudgetVerifier}.
+ *
+ * @author Vladimir Plizga
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class QueryBudgetConfig {
+
+    private static final String INITIAL_COST_ATTRIBUTE = QueryBudgetConfig.class.getName() + ".initialCost";
+
+    @Bean
+    QueryBudgetVerifier queryBudgetVerifier(Environment environment,
+                                            ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new QueryBudgetVerifier(environment, entityManagerFactory);
+    }
+
+    @Bean
+    static BeanPostProcessor queryBudgetPostProcessor(ObjectProvider<QueryBudgetVerifier> verifier) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !MonitoredDataSource.isMonitored(dataSource)) {
+                    return MonitoredDataSource.wrap(dataSource, verifier::getObject);
+                }
+                if (bean instanceof ClinicService) {
+                    MethodInterceptor interceptor = invocation -> {
+                        Cost initialCost = verifier.getObject().currentCost();
+                        try {
+                            Object result = invocation.proceed();
+                            verifier.getObject().completeOperation();
+                            return result;
+                        }
+                        finally {
+                            verifier.getObject().verify("ClinicService." + invocation.getMethod().getName(),
+                                initialCost);
+                        }
+                    };
+                    // the outermost advice makes the transaction commit a part of the measured cost, while a method
+                    // joining a surrounding transaction is completed explicitly
+                    if (bean instanceof Advised advised) {
+                        advised.addAdvice(0, interceptor);
+                        return bean;
+                    }
+                    ProxyFactory proxyFactory = new ProxyFactory(bean);
+                    proxyFactory.addAdvice(interceptor);
+                    return proxyFactory.getProxy();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MappedInterceptor queryBudgetInterceptor(QueryBudgetVerifier verifier) {
+        return new MappedInterceptor(new String[]{"/**"}, new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                request.setAttribute(INITIAL_COST_ATTRIBUTE, verifier.currentCost());
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                Object uriPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                verifier.verify(request.getMethod() + " " + uriPattern,
+                    (Cost) request.getAttribute(INITIAL_COST_ATTRIBUTE));
+            }
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Fails a test if any operation it invoked exceeded its query budget
+ *
+ * @author Vladimir Plizga
+ * @see EnableQueryBudgets
+ */
+class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        verifierOf(context).drainViolations();       // leave out whatever the test setup did
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        assertThat(verifierOf(context).drainViolations())
+            .as("Query budget violations")
+            .isEmpty();
+    }
+
+    private static QueryBudgetVerifier verifierOf(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(QueryBudgetVerifier.class);
+    }
+}
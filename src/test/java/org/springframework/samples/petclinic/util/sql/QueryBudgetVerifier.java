@@ -0,0 +1,125 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.samples.petclinic.util.sql.QueryBudgets.Budget;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Counts JDBC statements (reported by the {@link MonitoredDataSource} proxy) and Hibernate entity loads, and checks
+ * the cost of every measured operation against its {@linkplain QueryBudgets budget} for the active repository layer.
+ * The violations are collected rather than thrown so that they can't be swallowed by the code under test.
+ *
+ * @author Vladimir Plizga
+ */
+class QueryBudgetVerifier implements SqlStatementListener {
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetVerifier.class);
+
+    private static final List<String> REPOSITORY_LAYERS = List.of("jdbc", "jpa", "spring-data-jpa");
+
+    private final QueryBudgets budgets = QueryBudgets.load();
+    private final String layer;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    private final AtomicLong statements = new AtomicLong();
+    private final List<String> violations = new ArrayList<>();
+    private Statistics hibernateStatistics;
+
+    QueryBudgetVerifier(Environment environment, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.layer = Arrays.stream(environment.getActiveProfiles())
+            .filter(REPOSITORY_LAYERS::contains)
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No repository layer among active profiles"));
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void recordExecution(String normalizedSql, long elapsedNanos) {
+        statements.incrementAndGet();
+    }
+
+    @Override
+    public void recordRows(String normalizedSql, long rows) {
+        // rows don't count against the budgets
+    }
+
+    Cost currentCost() {
+        Statistics statistics = hibernateStatistics();
+        return new Cost(statements.get(), (statistics != null) ? statistics.getEntityLoadCount() : 0);
+    }
+
+    /**
+     * Ends the operation like a transaction of its own would, if it joined a surrounding JPA transaction (e.g. the
+     * rolled-back one of a test): flushes its pending writes, so that they count against its budget rather than
+     * never reach the database, and clears the persistence context, so that the next operation doesn't get for free
+     * what it would load on its own.
+     */
+    void completeOperation() {
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        if (factory != null
+            && TransactionSynchronizationManager.getResource(factory) instanceof EntityManagerHolder holder) {
+            holder.getEntityManager().flush();
+            holder.getEntityManager().clear();
+        }
+    }
+
+    /**
+     * Checks the cost of the given operation that started when the cost was {@code initialCost}
+     */
+    synchronized void verify(String operation, Cost initialCost) {
+        Cost cost = currentCost().minus(initialCost);
+        log.debug("{} on {} costs {}", operation, layer, cost);
+        Budget budget = budgets.find(layer, operation).orElse(null);
+        if (budget == null) {
+            violations.add("%s on %s has no query budget in %s (it costs %s)".formatted(operation, layer,
+                QueryBudgets.LOCATION, cost));
+        }
+        else if (cost.statements() > budget.statements()
+            || (budget.entityLoads() != null && cost.entityLoads() > budget.entityLoads())) {
+            violations.add("%s on %s costs %s while its budget is %s".formatted(operation, layer, cost, budget));
+        }
+    }
+
+    synchronized List<String> drainViolations() {
+        List<String> drained = List.copyOf(violations);
+        violations.clear();
+        return drained;
+    }
+
+    @Nullable
+    private synchronized Statistics hibernateStatistics() {
+        if (hibernateStatistics == null) {
+            EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+            if (factory == null) {
+                return null;
+            }
+            hibernateStatistics = factory.unwrap(SessionFactory.class).getStatistics();
+            hibernateStatistics.setStatisticsEnabled(true);
+        }
+        return hibernateStatistics;
+    }
+
+    record Cost(long statements, long entityLoads) {
+
+        Cost minus(Cost other) {
+            return new Cost(statements - other.statements, entityLoads - other.entityLoads);
+        }
+
+        @Override
+        public String toString() {
+            return "%d statements and %d entity loads".formatted(statements, entityLoads);
+        }
+    }
+}
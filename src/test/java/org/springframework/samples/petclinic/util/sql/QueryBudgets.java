@@ -0,0 +1,81 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Query budgets declared in {@value #LOCATION}, one per operation and repository layer. Every non-comment line of the
+ * file has the form of {@code <layer> | <operation> | <max statements> | <max entity loads or ->}.
+ *
+ * @author Vladimir Plizga
+ */
+final class QueryBudgets {
+
+    static final String LOCATION = "query-budgets.txt";
+
+    /**
+     * Key: {@code <layer>|<operation>}
+     */
+    private final Map<String, Budget> budgets;
+
+    private QueryBudgets(Map<String, Budget> budgets) {
+        this.budgets = budgets;
+    }
+
+    static QueryBudgets load() {
+        Map<String, Budget> budgets = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new ClassPathResource(LOCATION).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\\|");
+                if (columns.length != 4) {
+                    throw new IllegalStateException("Malformed query budget: " + line);
+                }
+                String entityLoads = columns[3].strip();
+                Budget budget = new Budget(Integer.parseInt(columns[2].strip()),
+                    entityLoads.equals("-") ? null : Integer.valueOf(entityLoads));
+                if (budgets.put(keyOf(columns[0].strip(), columns[1].strip()), budget) != null) {
+                    throw new IllegalStateException("Duplicate query budget: " + line);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to load query budgets from " + LOCATION, e);
+        }
+        return new QueryBudgets(budgets);
+    }
+
+    Optional<Budget> find(String layer, String operation) {
+        return Optional.ofNullable(budgets.get(keyOf(layer, operation)));
+    }
+
+    private static String keyOf(String layer, String operation) {
+        return layer + '|' + operation;
+    }
+
+    /**
+     * @param entityLoads {@code null} if the layer doesn't use Hibernate
+     */
+    record Budget(int statements, Integer entityLoads) {
+
+        @Override
+        public String toString() {
+            return (entityLoads == null)
+                ? "%d statements".formatted(statements)
+                : "%d statements and %d entity loads".formatted(statements, entityLoads);
+        }
+    }
+}
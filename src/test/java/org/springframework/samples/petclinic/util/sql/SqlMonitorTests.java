@@ -0,0 +1,33 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the metrics published by {@link SqlMonitor}
+ *
+ * @author Vladimir Plizga
+ */
+class SqlMonitorTests {
+
+    @Test
+    void shouldBoundNumberOfStatementMeters() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SqlMonitor sqlMonitor = new SqlMonitor(meterRegistry, 5);
+
+        for (int i = 0; i < 5_000; i++) {
+            sqlMonitor.recordExecution("select * from t" + i, 1_000);
+            sqlMonitor.recordRows("select * from t" + i, 1);
+        }
+
+        // 1000 distinct statements and the shared "other" ones
+        assertThat(meterRegistry.find("petclinic.sql.statements").timers()).hasSize(1_001);
+        assertThat(meterRegistry.find("petclinic.sql.rows").summaries()).hasSize(1_001);
+        assertThat(meterRegistry.get("petclinic.sql.statements").tag("statement", "select * from t0").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("petclinic.sql.statements").tag("statement", "other").timer().count())
+            .isEqualTo(4_000);
+    }
+}
@@ -0,0 +1,30 @@
+package org.springframework.samples.petclinic.util.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks {@link SqlNormalizer} on typical statements of the application
+ *
+ * @author Vladimir Plizga
+ */
+class SqlNormalizerTests {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "SELECT id FROM pets WHERE owner_id=?                | SELECT id FROM pets WHERE owner_id=?",
+        "SELECT id FROM pets WHERE owner_id=42               | SELECT id FROM pets WHERE owner_id=?",
+        "SELECT id FROM pets WHERE name='Leo' AND id > 1.5   | SELECT id FROM pets WHERE name=? AND id > ?",
+        "SELECT id FROM pets WHERE name='O''Hara'            | SELECT id FROM pets WHERE name=?",
+        "'  SELECT id\n  FROM\tpets  '                      | SELECT id FROM pets",
+        "SELECT id FROM pets WHERE id IN (?, ?, ?)           | SELECT id FROM pets WHERE id IN (?)",
+        "SELECT id FROM pets WHERE id IN (1,2,3)             | SELECT id FROM pets WHERE id IN (?)",
+        "UPDATE pets SET name=?, type_id=? WHERE id=?        | UPDATE pets SET name=?, type_id=? WHERE id=?",
+        "SELECT p1_0.id FROM pets p1_0 WHERE p1_0.type_id=2  | SELECT p1_0.id FROM pets p1_0 WHERE p1_0.type_id=?",
+    })
+    void shouldNormalize(String sql, String expected) {
+        assertThat(SqlNormalizer.normalize(sql)).isEqualTo(expected);
+    }
+}